@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MChangeListener;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+
+/**
+ * Checks that writing to a matrix that only has change listeners or a
+ * MatrixEventBus does not allocate anything in the steady state.
+ * The bytes that the writing thread allocates are measured with the
+ * allocation counter of the JVM, run it with ./gradlew checkAllocations.
+ * Exits with 1 if one of the writes allocates.
+ */
+public class AllocationCheck {
+    private static final int       WARMUP_WRITES   = 2_000_000;
+    private static final int       MEASURED_WRITES = 1_000_000;
+    private static final double    MAX_BYTES       = 0.1;
+    private static final Integer[] ITEMS           = { 1, 2, 3 };
+
+
+    public static void main(String[] args) {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+            System.out.println("The JVM does not count allocated bytes per thread, skipped");
+            return;
+        }
+        final com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean) threadMXBean;
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+        final MChangeListener<Integer> listener = (x, y, oldItem, item) -> {};
+        boolean allocationFree = true;
+
+        ObservableMatrix<Integer> matrix = new ObservableMatrix<>(Integer.class, 4, 4);
+        matrix.addChangeListener(listener);
+        allocationFree &= check(allocationCounter, "ObservableMatrix with MChangeListener", i -> matrix.setItemAt(i & 3, 1, ITEMS[i % 3]));
+
+        AtomicObservableMatrix<Integer> atomicMatrix = new AtomicObservableMatrix<>(Integer.class, 4, 4);
+        atomicMatrix.addChangeListener(listener);
+        for (int x = 0 ; x < 4 ; x++) { atomicMatrix.setItemAt(x, 2, ITEMS[0]); }
+        allocationFree &= check(allocationCounter, "AtomicObservableMatrix with MChangeListener", i -> atomicMatrix.setItemAt(i & 3, 1, ITEMS[i % 3]));
+        allocationFree &= check(allocationCounter, "AtomicObservableMatrix.accumulateItemAt() with MChangeListener", i -> atomicMatrix.accumulateItemAt(i & 3, 2, ITEMS[0], Integer::max));
+
+        MatrixEventBus<Integer> eventBus = new MatrixEventBus<>(1024);
+        eventBus.addListener(listener);
+        AtomicObservableMatrix<Integer> busMatrix = new AtomicObservableMatrix<>(Integer.class, 4, 4);
+        busMatrix.addChangeListener(eventBus);
+        allocationFree &= check(allocationCounter, "AtomicObservableMatrix with MatrixEventBus", i -> busMatrix.setItemAt(i & 3, 1, ITEMS[i % 3]));
+        eventBus.awaitListeners(10, TimeUnit.SECONDS);
+        eventBus.close();
+
+        if (!allocationFree) { System.exit(1); }
+    }
+
+    private static boolean check(final com.sun.management.ThreadMXBean allocationCounter, final String name, final IntConsumer write) {
+        final long threadId = Thread.currentThread().getId();
+        for (int i = 0 ; i < WARMUP_WRITES ; i++) { write.accept(i); }
+        final long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        for (int i = 0 ; i < MEASURED_WRITES ; i++) { write.accept(i); }
+        final double bytesPerWrite = (allocationCounter.getThreadAllocatedBytes(threadId) - before) / (double) MEASURED_WRITES;
+        final boolean allocationFree = bytesPerWrite <= MAX_BYTES;
+        System.out.println(String.format("%-65s %8.3f bytes per write %s", name, bytesPerWrite, allocationFree ? "" : "FAILED"));
+        return allocationFree;
+    }
+}
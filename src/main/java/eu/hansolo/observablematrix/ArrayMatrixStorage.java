@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+
+/**
+ * Stores the items in an array of column arrays (matrix[x][y]).
+ * Like an ArrayList the arrays can be larger than the current number
+ * of columns and rows, the spare columns are null and the spare cells
+ * of each column are null. If the capacity is exceeded it grows by 50%
+ * so that adding columns or rows one by one is amortized O(1) per cell.
+ * @param <T>
+ */
+final class ArrayMatrixStorage<T> implements MatrixStorage<T> {
+    private final Class<T> type;
+    private       T[][]    matrix;
+    private       int      rowCapacity;
+    private       int      cols;
+    private       int      rows;
+    private       int      noOfItems;
+
+
+    // ******************** Constructors **************************************
+    ArrayMatrixStorage(final Class<T> type, final int cols, final int rows) {
+        this.type        = type;
+        this.matrix      = createArray(type, cols, rows);
+        this.rowCapacity = rows;
+        this.cols        = cols;
+        this.rows        = rows;
+        this.noOfItems   = 0;
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override public T get(final int x, final int y) { return matrix[x][y]; }
+
+    @Override public void set(final int x, final int y, final T item) {
+        T oldItem = matrix[x][y];
+        matrix[x][y] = item;
+        if (null == oldItem) {
+            if (null != item) { noOfItems++; }
+        } else if (null == item) {
+            noOfItems--;
+        }
+    }
+
+    @Override public int getCols() { return cols; }
+
+    @Override public int getRows() { return rows; }
+
+    @Override public int getNoOfItems() { return noOfItems; }
+
+    @Override public void forEachItem(final ItemConsumer<T> consumer) {
+        for (int x = 0 ; x < cols ; x++) {
+            T[] column = matrix[x];
+            for (int y = 0 ; y < rows ; y++) {
+                if (null != column[y]) { consumer.accept(x, y, column[y]); }
+            }
+        }
+    }
+
+    @Override public void insertCol(final int at) {
+        if (cols == matrix.length) { setCapacity(grow(cols, cols + 1), rowCapacity); }
+        System.arraycopy(matrix, at, matrix, at + 1, cols - at);
+        matrix[at] = newColumn(rowCapacity);
+        cols++;
+    }
+
+    @Override public void removeCol(final int at) {
+        for (int y = 0 ; y < rows ; y++) { if (null != matrix[at][y]) { noOfItems--; } }
+        System.arraycopy(matrix, at + 1, matrix, at, cols - at - 1);
+        cols--;
+        matrix[cols] = null;
+    }
+
+    @Override public void insertRow(final int at) {
+        if (rows == rowCapacity) { setCapacity(matrix.length, grow(rows, rows + 1)); }
+        for (int x = 0 ; x < cols ; x++) {
+            T[] column = matrix[x];
+            System.arraycopy(column, at, column, at + 1, rows - at);
+            column[at] = null;
+        }
+        rows++;
+    }
+
+    @Override public void removeRow(final int at) {
+        for (int x = 0 ; x < cols ; x++) {
+            T[] column = matrix[x];
+            if (null != column[at]) { noOfItems--; }
+            System.arraycopy(column, at + 1, column, at, rows - at - 1);
+            column[rows - 1] = null;
+        }
+        rows--;
+    }
+
+    @Override public void resize(final int cols, final int rows) {
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        for (int x = cols ; x < this.cols ; x++) {
+            for (int y = 0 ; y < this.rows ; y++) { if (null != matrix[x][y]) { noOfItems--; } }
+            matrix[x] = null;
+        }
+        this.cols = Math.min(cols, this.cols);
+        if (rows < this.rows) {
+            for (int x = 0 ; x < this.cols ; x++) {
+                T[] column = matrix[x];
+                for (int y = rows ; y < this.rows ; y++) {
+                    if (null != column[y]) {
+                        column[y] = null;
+                        noOfItems--;
+                    }
+                }
+            }
+        }
+        this.rows = Math.min(rows, this.rows);
+        if (cols > matrix.length || rows > rowCapacity) {
+            setCapacity(cols > matrix.length ? grow(matrix.length, cols) : matrix.length,
+                        rows > rowCapacity ? grow(rowCapacity, rows) : rowCapacity);
+        }
+        for (int x = this.cols ; x < cols ; x++) { matrix[x] = newColumn(rowCapacity); }
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    @Override public void ensureCapacity(final int cols, final int rows) {
+        if (cols > matrix.length || rows > rowCapacity) {
+            setCapacity(Math.max(matrix.length, cols), Math.max(rowCapacity, rows));
+        }
+    }
+
+    @Override public void trimToSize() {
+        if (cols < matrix.length || rows < rowCapacity) { setCapacity(cols, rows); }
+    }
+
+    @Override public void clear() {
+        for (int x = 0 ; x < cols ; x++) { Arrays.fill(matrix[x], 0, rows, null); }
+        noOfItems = 0;
+    }
+
+    @Override public void mirrorCols() {
+        for(int i = 0; i < (cols/2); i++) {
+            T[] temp = matrix[i];
+            matrix[i] = matrix[cols - i - 1];
+            matrix[cols - i - 1] = temp;
+        }
+    }
+
+    @Override public void mirrorRows() {
+        for (int j = 0; j < cols; ++j) {
+            T[] row = matrix[j];
+            for(int i = 0; i < (rows/2); i++) {
+                T temp = row[i];
+                row[i] = row[rows - i - 1];
+                row[rows - i - 1] = temp;
+            }
+        }
+    }
+
+    @Override public boolean contains(final Object item) {
+        for (int x = 0 ; x < cols ; x++) {
+            T[] column = matrix[x];
+            for (int y = 0 ; y < rows ; y++) {
+                if (null != column[y] && column[y].equals(item)) { return true; }
+            }
+        }
+        return false;
+    }
+
+    @Override public long indexOf(final Object item) {
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                T matrixItem = get(x, y);
+                if (null != matrixItem && matrixItem.equals(item)) { return ((long) x << 32) | y; }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the backing array, changes to it will directly change the storage
+     * (but will not be reflected by getNoOfItems()).
+     * Spare capacity will be trimmed before so that the array has exactly
+     * the size of the matrix.
+     * @return the backing array
+     */
+    @Override public T[][] toArray() {
+        trimToSize();
+        return matrix;
+    }
+
+
+    // ******************** Private methods ***********************************
+    /**
+     * Reallocates the arrays with the given capacity, the capacity
+     * must not be smaller than the current number of columns and rows
+     * @param colCapacity
+     * @param rowCapacity
+     */
+    private void setCapacity(final int colCapacity, final int rowCapacity) {
+        T[][] newMatrix = Arrays.copyOf(matrix, colCapacity);
+        if (rowCapacity != this.rowCapacity) {
+            for (int x = 0 ; x < cols ; x++) {
+                newMatrix[x] = newColumn(rowCapacity);
+                System.arraycopy(matrix[x], 0, newMatrix[x], 0, rows);
+            }
+        }
+        matrix           = newMatrix;
+        this.rowCapacity = rowCapacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] newColumn(final int rowCapacity) { return (T[]) Array.newInstance(type, rowCapacity); }
+
+    /**
+     * Returns the new capacity for the given current capacity, it grows by 50%
+     * but at least to the given minimum capacity
+     * @param capacity
+     * @param minCapacity
+     * @return the new capacity
+     */
+    static int grow(final int capacity, final int minCapacity) {
+        return Math.max(minCapacity, capacity + (capacity >> 1));
+    }
+
+    /**
+     * Returns a 2-dimensional array of the given type <T> and size
+     * @param type Class of generic type
+     * @param cols Number of columns for the matrix
+     * @param rows Number of rows for the matrix
+     * @param <T>
+     * @return a 2-dimensional array of the given type <T> and size
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T[][] createArray(final Class<T> type, final int cols, final int rows) {
+        if (null == type) { throw new IllegalArgumentException("type cannot be null"); }
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        return (T[][]) Array.newInstance(type, cols, rows);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MEvent;
+import eu.hansolo.observablematrix.event.MObserver;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Wraps an MObserver so that events are queued on the firing thread and
+ * handled by a task on the given executor. At most one task per observer
+ * runs at a time and it handles the queued events in the order they were
+ * fired, so the observer sees the events in order but never blocks the
+ * thread that fires them.
+ * Exceptions of the observer are passed to the uncaught exception handler
+ * of the executing thread and do not stop the delivery of later events.
+ * If the executor rejects the task, the queued events are dropped and the
+ * rejection is passed to the uncaught exception handler of the firing thread.
+ */
+final class AsyncObserver implements MObserver<MEvent> {
+    private final MObserver<MEvent> observer;
+    private final Executor          executor;
+    private final Queue<MEvent>     events;
+    private final AtomicBoolean     scheduled;
+    private final AtomicLong        pending;
+
+
+    // ******************** Constructors **************************************
+    AsyncObserver(final MObserver<MEvent> observer, final Executor executor) {
+        if (null == observer) { throw new IllegalArgumentException("observer cannot be null"); }
+        if (null == executor) { throw new IllegalArgumentException("executor cannot be null"); }
+        this.observer  = observer;
+        this.executor  = executor;
+        this.events    = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.pending   = new AtomicLong(0);
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override public void handle(final MEvent event) {
+        pending.incrementAndGet();
+        events.offer(event);
+        schedule();
+    }
+
+    /**
+     * Returns true if this wraps the given observer
+     * @param observer
+     * @return true if this wraps the given observer
+     */
+    boolean wraps(final MObserver<?> observer) { return this.observer == observer; }
+
+    /**
+     * Waits until all events that were fired so far have been handled
+     * @param deadline in System.nanoTime()
+     * @return false if the deadline passed before
+     * @throws InterruptedException
+     */
+    boolean awaitIdle(final long deadline) throws InterruptedException {
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) { return false; }
+                pending.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+            }
+        }
+        return true;
+    }
+
+
+    // ******************** Private methods ***********************************
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) { return; }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Nobody will handle the queued events, drop them and report the rejection without throwing into the firing thread
+            while (null != events.poll()) { handled(); }
+            scheduled.set(false);
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            if (!events.isEmpty()) { schedule(); }
+        }
+    }
+
+    private void drain() {
+        try {
+            MEvent event;
+            while (null != (event = events.poll())) {
+                try {
+                    observer.handle(event);
+                } catch (RuntimeException e) {
+                    final Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                } finally {
+                    handled();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // Events that were queued after the last poll but before the flag was reset
+            if (!events.isEmpty()) { schedule(); }
+        }
+    }
+
+    private void handled() {
+        if (0 == pending.decrementAndGet()) {
+            synchronized (pending) { pending.notifyAll(); }
+        }
+    }
+}
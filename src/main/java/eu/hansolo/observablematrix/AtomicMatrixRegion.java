@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * The locked rectangle of an AtomicObservableMatrix that is passed to the action
+ * of AtomicObservableMatrix.withRegion(). Positions are positions in the matrix.
+ * The region can only be used while the action runs, the changes of each cell
+ * will be fired as one event (first old item, last item) after the action finished.
+ * @param <T>
+ */
+public final class AtomicMatrixRegion<T> {
+
+    @FunctionalInterface
+    interface ChangeConsumer<T> {
+        void accept(int x, int y, T oldItem, T item);
+    }
+
+
+    private final AtomicMatrixStorage<T> storage;
+    private final int                    x;
+    private final int                    y;
+    private final int                    width;
+    private final int                    height;
+    private final Map<Long, T>           oldItems;
+    private final Map<Long, T>           items;
+    private       boolean                closed;
+
+
+    // ******************** Constructors **************************************
+    AtomicMatrixRegion(final AtomicMatrixStorage<T> storage, final int x, final int y, final int width, final int height) {
+        this.storage  = storage;
+        this.x        = x;
+        this.y        = y;
+        this.width    = width;
+        this.height   = height;
+        this.oldItems = new LinkedHashMap<>();
+        this.items    = new LinkedHashMap<>();
+        this.closed   = false;
+    }
+
+
+    // ******************** Methods *******************************************
+    public int getX() { return x; }
+
+    public int getY() { return y; }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    /**
+     * Returns the item at the given position of the matrix
+     * @param x Column in the matrix
+     * @param y Row in the matrix
+     * @return the item at the given position of the matrix
+     */
+    public T getItemAt(final int x, final int y) {
+        checkBounds(x, y);
+        return storage.get(x, y);
+    }
+
+    /**
+     * Sets the given item at the given position of the matrix
+     * @param x Column in the matrix
+     * @param y Row in the matrix
+     * @param item
+     * @return the item that was replaced
+     */
+    public T setItemAt(final int x, final int y, final T item) {
+        checkBounds(x, y);
+        final T    oldItem  = storage.getAndSet(x, y, item);
+        final long position = MatrixItemIndex.key(x, y);
+        if (!oldItems.containsKey(position)) { oldItems.put(position, oldItem); }
+        items.put(position, item);
+        return oldItem;
+    }
+
+    public T removeItemAt(final int x, final int y) { return setItemAt(x, y, null); }
+
+    void close() { closed = true; }
+
+    /**
+     * Calls the given consumer once for each cell that was changed
+     * with the first old item and the last item of the cell
+     * @param consumer
+     */
+    void forEachChange(final ChangeConsumer<T> consumer) {
+        oldItems.forEach((position, oldItem) -> {
+            final T item = items.get(position);
+            if (oldItem != item) { consumer.accept(MatrixItemIndex.col(position), MatrixItemIndex.row(position), oldItem, item); }
+        });
+    }
+
+
+    // ******************** Private methods ***********************************
+    private void checkBounds(final int x, final int y) {
+        if (closed) { throw new IllegalStateException("region can only be used within withRegion()"); }
+        if (x < this.x || x >= this.x + width || y < this.y || y >= this.y + height) { throw new IllegalArgumentException("x/y must be within the region"); }
+    }
+}
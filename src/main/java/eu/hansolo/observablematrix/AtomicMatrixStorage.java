@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntUnaryOperator;
+
+
+/**
+ * The cells of an AtomicObservableMatrix in one flat AtomicReferenceArray
+ * (column by column), so each cell costs one reference and each read is a
+ * single volatile load.
+ * The size and the mirroring of a storage never change, structural changes
+ * return a new storage so that a reader always sees an array together with
+ * the matching number of columns and rows.
+ * While the cells are copied into a new storage each copied cell of this
+ * storage is replaced by FORWARDED, reads and writes that still use this
+ * storage will then be forwarded to the cell in the new storage. So no
+ * write gets lost during a structural change and nobody has to wait for it.
+ * Cells that are not copied (e.g. of a removed column) are replaced by
+ * REMOVED, a write that hits such a cell is applied to the same position
+ * of the new storage, so it happens after the structural change.
+ * Positions are logical positions, if the columns or rows are reversed
+ * they will be translated on access.
+ * @param <T>
+ */
+final class AtomicMatrixStorage<T> {
+    private static final Object FORWARDED = new Object();
+    private static final Object REMOVED   = new Object();
+    private final Cells   cells;
+    final         int     cols;
+    final         int     rows;
+    final         boolean colsReversed;
+    final         boolean rowsReversed;
+
+
+    // ******************** Constructors **************************************
+    AtomicMatrixStorage(final int cols, final int rows) {
+        this(new Cells(checkSize(cols, rows)), cols, rows, false, false);
+    }
+    private AtomicMatrixStorage(final Cells cells, final int cols, final int rows, final boolean colsReversed, final boolean rowsReversed) {
+        this.cells        = cells;
+        this.cols         = cols;
+        this.rows         = rows;
+        this.colsReversed = colsReversed;
+        this.rowsReversed = rowsReversed;
+    }
+
+
+    // ******************** Methods *******************************************
+    boolean contains(final int x, final int y) { return x >= 0 && x < cols && y >= 0 && y < rows; }
+
+    @SuppressWarnings("unchecked")
+    T get(final int x, final int y) {
+        final int index = index(x, y);
+        while (true) {
+            final Object item = cells.get(index);
+            if (REMOVED != item) { return (T) item; }
+            final AtomicMatrixStorage<T> successor = awaitSuccessor(index, x, y);
+            if (null != successor) { return successor.get(x, y); }
+        }
+    }
+
+    void set(final int x, final int y, final T item) { getAndSet(x, y, item); }
+
+    @SuppressWarnings("unchecked")
+    T getAndSet(final int x, final int y, final T item) {
+        final int index = index(x, y);
+        while (true) {
+            final Object oldItem = cells.getAndSet(index, item);
+            if (REMOVED != oldItem) { return (T) oldItem; }
+            final AtomicMatrixStorage<T> successor = awaitSuccessor(index, x, y);
+            if (null != successor) { return successor.getAndSet(x, y, item); }
+        }
+    }
+
+    boolean compareAndSet(final int x, final int y, final T expectedItem, final T item) {
+        final int index = index(x, y);
+        while (true) {
+            final Object witness = cells.compareAndExchange(index, expectedItem, item);
+            if (REMOVED != witness) { return witness == expectedItem; }
+            final AtomicMatrixStorage<T> successor = awaitSuccessor(index, x, y);
+            if (null != successor) { return successor.compareAndSet(x, y, expectedItem, item); }
+        }
+    }
+
+    /**
+     * Returns a storage that shares the cells with this storage
+     * but accesses the columns in reversed order
+     * @return a storage with reversed columns
+     */
+    AtomicMatrixStorage<T> mirrorCols() { return new AtomicMatrixStorage<>(cells, cols, rows, !colsReversed, rowsReversed); }
+
+    /**
+     * Returns a storage that shares the cells with this storage
+     * but accesses the rows in reversed order
+     * @return a storage with reversed rows
+     */
+    AtomicMatrixStorage<T> mirrorRows() { return new AtomicMatrixStorage<>(cells, cols, rows, colsReversed, !rowsReversed); }
+
+    /**
+     * Returns this storage if it is not mirrored, otherwise a copy
+     * where the physical order of the cells is the logical order
+     * @return a storage that is not mirrored
+     */
+    AtomicMatrixStorage<T> materialize() {
+        if (!colsReversed && !rowsReversed) { return this; }
+        return copy(cols, rows, x -> x, y -> y);
+    }
+
+    /**
+     * Returns a copy with a column of null items inserted at the given index
+     * @param at
+     * @return a copy with a column of null items inserted at the given index
+     */
+    AtomicMatrixStorage<T> insertCol(final int at) { return copy(cols + 1, rows, x -> x < at ? x : x == at ? -1 : x - 1, y -> y); }
+
+    AtomicMatrixStorage<T> removeCol(final int at) { return copy(cols - 1, rows, x -> x < at ? x : x + 1, y -> y); }
+
+    /**
+     * Returns a copy without the given column if all items of the column are null.
+     * The cells of the column are sealed while they are null, so an item that is
+     * written into the column in the meantime will not be lost, instead the column
+     * will not be removed.
+     * @param at
+     * @return a copy without the given column or null if the column is not empty
+     */
+    AtomicMatrixStorage<T> removeEmptyCol(final int at) {
+        final int[] indices = new int[rows];
+        for (int y = 0 ; y < rows ; y++) { indices[y] = index(at, y); }
+        return cells.seal(indices) ? removeCol(at) : null;
+    }
+
+    /**
+     * Returns a copy with a row of null items inserted at the given index
+     * @param at
+     * @return a copy with a row of null items inserted at the given index
+     */
+    AtomicMatrixStorage<T> insertRow(final int at) { return copy(cols, rows + 1, x -> x, y -> y < at ? y : y == at ? -1 : y - 1); }
+
+    AtomicMatrixStorage<T> removeRow(final int at) { return copy(cols, rows - 1, x -> x, y -> y < at ? y : y + 1); }
+
+    /**
+     * Returns a copy without the given row if all items of the row are null,
+     * see removeEmptyCol()
+     * @param at
+     * @return a copy without the given row or null if the row is not empty
+     */
+    AtomicMatrixStorage<T> removeEmptyRow(final int at) {
+        final int[] indices = new int[cols];
+        for (int x = 0 ; x < cols ; x++) { indices[x] = index(x, at); }
+        return cells.seal(indices) ? removeRow(at) : null;
+    }
+
+    /**
+     * Returns a copy with the given size, items outside of the new size will be lost
+     * @param cols new number of columns
+     * @param rows new number of rows
+     * @return a copy with the given size
+     */
+    AtomicMatrixStorage<T> resize(final int cols, final int rows) {
+        checkSize(cols, rows);
+        return copy(cols, rows, x -> x < this.cols ? x : -1, y -> y < this.rows ? y : -1);
+    }
+
+
+    // ******************** Private methods ***********************************
+    private int index(final int x, final int y) { return (colsReversed ? cols - 1 - x : x) * rows + (rowsReversed ? rows - 1 - y : y); }
+
+    /**
+     * Waits until the storage that replaced this storage is known
+     * @param index index of a cell that was REMOVED
+     * @param x
+     * @param y
+     * @return the storage that replaced this storage or null if the cell is not sealed anymore
+     */
+    @SuppressWarnings("unchecked")
+    private AtomicMatrixStorage<T> awaitSuccessor(final int index, final int x, final int y) {
+        Object successor;
+        while (null == (successor = cells.successor)) {
+            if (!cells.isRemoved(index)) { return null; }
+            Thread.yield();
+        }
+        final AtomicMatrixStorage<T> storage = (AtomicMatrixStorage<T>) successor;
+        if (!storage.contains(x, y)) { throw new IllegalArgumentException("Given position (" + x + ", " + y + ") was removed from the matrix"); }
+        return storage;
+    }
+
+    /**
+     * Returns a new storage of the given size where each cell (x, y) contains the
+     * item of this storage at (colMap(x), rowMap(y)) or null if one of them is -1.
+     * The copied cells of this storage will be forwarded to the new storage, access
+     * to the other cells waits until all cells were copied and then goes to the
+     * same position of the new storage. So only one copy of a storage must be
+     * created and only from the storage that is currently used by the matrix.
+     * @param cols
+     * @param rows
+     * @param colMap
+     * @param rowMap
+     * @return a new storage of the given size
+     */
+    private AtomicMatrixStorage<T> copy(final int cols, final int rows, final IntUnaryOperator colMap, final IntUnaryOperator rowMap) {
+        final AtomicMatrixStorage<T> storage   = new AtomicMatrixStorage<>(cols, rows);
+        final int[]                  nextIndex = new int[this.cols * this.rows];
+        Arrays.fill(nextIndex, -1);
+        for (int x = 0 ; x < cols ; x++) {
+            final int col = colMap.applyAsInt(x);
+            if (-1 == col) { continue; }
+            for (int y = 0 ; y < rows ; y++) {
+                final int row = rowMap.applyAsInt(y);
+                if (-1 != row) { nextIndex[index(col, row)] = x * rows + y; }
+            }
+        }
+        cells.forward(storage.cells, nextIndex);
+        cells.successor = storage;
+        return storage;
+    }
+
+    private static int checkSize(final int cols, final int rows) {
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        return cols * rows;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    /**
+     * The physical cells, shared by all mirrored storages of the same array.
+     * Once a cell was forwarded it is only accessed through the next cells.
+     */
+    private static final class Cells {
+        private final    AtomicReferenceArray<Object> items;
+        private          int[]                        nextIndex;
+        private volatile Cells                        next;
+        private volatile Object                       successor;
+
+
+        Cells(final int size) { this.items = new AtomicReferenceArray<>(size); }
+
+
+        Object get(final int index) {
+            final Object item = items.get(index);
+            return FORWARDED == item ? next.get(nextIndex[index]) : item;
+        }
+
+        /**
+         * Sets the cell unless it was removed
+         * @param index
+         * @param item
+         * @return the old item or REMOVED if nothing was set
+         */
+        Object getAndSet(final int index, final Object item) {
+            while (true) {
+                final Object oldItem = items.get(index);
+                if (FORWARDED == oldItem) { return next.getAndSet(nextIndex[index], item); }
+                if (REMOVED == oldItem) { return REMOVED; }
+                if (items.compareAndSet(index, oldItem, item)) { return oldItem; }
+            }
+        }
+
+        /**
+         * Sets the cell if it contains the expected item
+         * @param index
+         * @param expectedItem
+         * @param item
+         * @return the expected item if the cell was set, otherwise the item that was found
+         */
+        Object compareAndExchange(final int index, final Object expectedItem, final Object item) {
+            while (true) {
+                final Object oldItem = items.get(index);
+                if (FORWARDED == oldItem) { return next.compareAndExchange(nextIndex[index], expectedItem, item); }
+                if (oldItem != expectedItem) { return oldItem; }
+                if (items.compareAndSet(index, expectedItem, item)) { return expectedItem; }
+            }
+        }
+
+        boolean isRemoved(final int index) { return REMOVED == items.get(index); }
+
+        /**
+         * Replaces the given cells by REMOVED if all of them are null,
+         * otherwise the cells that were already replaced are set back to null.
+         * @param indices
+         * @return true if all given cells were null and are REMOVED now
+         */
+        boolean seal(final int[] indices) {
+            for (int i = 0 ; i < indices.length ; i++) {
+                if (!items.compareAndSet(indices[i], null, REMOVED)) {
+                    for (int j = 0 ; j < i ; j++) { items.set(indices[j], null); }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Copies each cell with a nextIndex other than -1 to the given cells
+         * and replaces it by FORWARDED. A cell is only forwarded if it was not
+         * written in the meantime, otherwise it will be copied again.
+         * All other cells are replaced by REMOVED.
+         * @param next
+         * @param nextIndex
+         */
+        void forward(final Cells next, final int[] nextIndex) {
+            this.nextIndex = nextIndex;
+            this.next      = next;
+            for (int index = 0 ; index < nextIndex.length ; index++) {
+                if (-1 == nextIndex[index]) {
+                    items.set(index, REMOVED);
+                    continue;
+                }
+                Object item;
+                do {
+                    item = items.get(index);
+                    next.items.lazySet(nextIndex[index], item);
+                } while (!items.compareAndSet(index, item, FORWARDED));
+            }
+        }
+    }
+}
@@ -16,26 +16,35 @@
 
 package eu.hansolo.observablematrix;
 
+import eu.hansolo.observablematrix.event.MChangeListener;
 import eu.hansolo.observablematrix.event.MColumnEvent;
 import eu.hansolo.observablematrix.event.MColumnsEvent;
 import eu.hansolo.observablematrix.event.MEvent;
 import eu.hansolo.observablematrix.event.MEventType;
+import eu.hansolo.observablematrix.event.MFlow;
 import eu.hansolo.observablematrix.event.MItemEvent;
 import eu.hansolo.observablematrix.event.MObserver;
 import eu.hansolo.observablematrix.event.MRowEvent;
 import eu.hansolo.observablematrix.event.MRowsEvent;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static eu.hansolo.observablematrix.event.MColumnEvent.COLUMN_ADDED;
@@ -51,14 +60,43 @@ import static eu.hansolo.observablematrix.event.MRowsEvent.NO_OF_ROWS_CHANGED;
 import static eu.hansolo.observablematrix.event.MRowsEvent.ROWS_MIRRORED;
 
 
+/**
+ * A matrix that can be read and written by multiple threads.
+ * The items are stored in one flat AtomicReferenceArray, the size of
+ * the matrix is published together with the array so that each method
+ * works on one consistent snapshot of the matrix.
+ * Structural changes (adding, removing, resizing, mirroring) copy the
+ * cells into a new storage and publish it (read-copy-update). They are
+ * serialized among each other but never block readers and writers of
+ * cells, writes to a storage that is being copied will be forwarded to
+ * the new storage and will not get lost.
+ * Updates of several cells (withRegion(), swapItems(), moveItem()) lock
+ * the stripes of their cells in a fixed order and are atomic with respect
+ * to each other.
+ * Each successful update of a cell fires exactly one event that contains
+ * the real items before and after the update, the events of a cell are fired
+ * in the order the updates were applied. To guarantee that, cell updates are
+ * only lock-free if there is no consumer, observer or change listener. Otherwise
+ * they lock the stripe of their cell for the write, call the change listeners
+ * while the stripe is locked (without creating event objects) and queue the
+ * MItemEvent if there is a consumer or observer for it. The queue of a stripe
+ * is fired by one thread at a time without holding the lock. If another thread
+ * is firing the events of the stripe at that moment, it will fire the queued
+ * event too, so the event might be fired after the update method returned.
+ * @param <T>
+ */
 public class AtomicObservableMatrix<T> {
     private final          Class<T>                     type;
-    private final          Map<String, List<MObserver>> observers;
-    private                AtomicReference<T>[][]       matrix;
-    private       volatile int                          cols;
-    private       volatile int                          rows;
-    private                boolean                      colsMirrored;
-    private                boolean                      rowsMirrored;
+    private final          MEventDispatcher             dispatcher;
+    private static final   int                          NO_OF_STRIPES = 64;
+    private final          ReentrantReadWriteLock       structureLock;
+    private final          ReentrantLock[]              stripes;
+    private final          ReentrantLock[]              deliveries;
+    private final          ArrayDeque<MItemEvent<T>>[]  pendingItemEvents;
+    private final          AtomicIntegerArray           noOfPendingItemEvents;
+    private       volatile AtomicMatrixStorage<T>       storage;
+    private       volatile boolean                      colsMirrored;
+    private       volatile boolean                      rowsMirrored;
     private                Consumer<MItemEvent<T>>      itemAddedConsumer;
     private                Consumer<MItemEvent<T>>      itemRemovedConsumer;
     private                Consumer<MItemEvent<T>>      itemChangedConsumer;
@@ -70,6 +108,7 @@ public class AtomicObservableMatrix<T> {
     private                Consumer<MRowsEvent>         rowsChangedConsumer;
     private                Consumer<MColumnsEvent>      columnsMirroredConsumer;
     private                Consumer<MRowsEvent>         rowsMirroredConsumer;
+    private       volatile MChangeListener<T>[]         changeListeners;
     private                boolean                      resizeMatrixWhenInnerRowOrColIsRemoved;
 
 
@@ -78,11 +117,23 @@ public class AtomicObservableMatrix<T> {
         this(type, cols, rows, false);
     }
     public AtomicObservableMatrix(Class<T> type, final int cols, final int rows, final boolean resizeMatrixWhenInnerRowOrColIsRemoved) {
+        if (null == type) { throw new IllegalArgumentException("type cannot be null"); }
+        @SuppressWarnings("unchecked") final MChangeListener<T>[]         noChangeListeners = (MChangeListener<T>[]) new MChangeListener<?>[0];
+        @SuppressWarnings("unchecked") final ArrayDeque<MItemEvent<T>>[] pendingItemEvents = (ArrayDeque<MItemEvent<T>>[]) new ArrayDeque<?>[NO_OF_STRIPES];
         this.type                                   = type;
-        this.observers                              = new ConcurrentHashMap<>();;
-        this.matrix                                 = createArray(type, cols, rows);
-        this.cols                                   = cols;
-        this.rows                                   = rows;
+        this.dispatcher                             = new MEventDispatcher();
+        this.changeListeners                        = noChangeListeners;
+        this.structureLock                          = new ReentrantReadWriteLock();
+        this.stripes                                = new ReentrantLock[NO_OF_STRIPES];
+        this.deliveries                             = new ReentrantLock[NO_OF_STRIPES];
+        this.pendingItemEvents                      = pendingItemEvents;
+        this.noOfPendingItemEvents                  = new AtomicIntegerArray(NO_OF_STRIPES);
+        for (int i = 0 ; i < NO_OF_STRIPES ; i++) {
+            stripes[i]           = new ReentrantLock();
+            deliveries[i]        = new ReentrantLock();
+            pendingItemEvents[i] = new ArrayDeque<>();
+        }
+        this.storage                                = new AtomicMatrixStorage<>(cols, rows);
         this.colsMirrored                           = false;
         this.rowsMirrored                           = false;
         this.resizeMatrixWhenInnerRowOrColIsRemoved = resizeMatrixWhenInnerRowOrColIsRemoved;
@@ -97,8 +148,9 @@ public class AtomicObservableMatrix<T> {
      * @return the given item in the matrix at the given position defined by x and y
      */
     public T getItemAt(final int x, final int y) {
-        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
-        return matrix[x][y].get();
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (!storage.contains(x, y)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+        return storage.get(x, y);
     }
 
     /**
@@ -111,28 +163,218 @@ public class AtomicObservableMatrix<T> {
         setItemAt(x, y, item, true);
     }
     public void setItemAt(final int x, final int y, final T item, final boolean notify) {
-        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (!storage.contains(x, y)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+        getAndSet(storage, x, y, item, notify);
+    }
 
-        T oldItem = matrix[x][y].get();
-        matrix[x][y].set(item);
+    /**
+     * Atomically sets the given item at the given position if the current item
+     * is the expected item (compared by identity like AtomicReference does)
+     * @param x            Column of the item
+     * @param y            Row of the item
+     * @param expectedItem
+     * @param item
+     * @return true if the item was set
+     */
+    public boolean compareAndSetItemAt(final int x, final int y, final T expectedItem, final T item) {
+        return compareAndSetItemAt(x, y, expectedItem, item, true);
+    }
+    public boolean compareAndSetItemAt(final int x, final int y, final T expectedItem, final T item, final boolean notify) {
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (!storage.contains(x, y)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+        return compareAndSet(storage, x, y, expectedItem, item, notify);
+    }
 
-        if (notify) {
-            if (null == oldItem && item != null) {
-                MItemEvent<T> evt = new MItemEvent<>(AtomicObservableMatrix.this, ITEM_ADDED, x, y, oldItem, item);
-                if (null != itemAddedConsumer) { itemAddedConsumer.accept(evt);}
-                fireEvent(evt);
-            } else if (null != oldItem && item == null) {
-                MItemEvent<T> evt = new MItemEvent<>(AtomicObservableMatrix.this, ITEM_REMOVED, x, y, oldItem, item);
-                if (null != itemRemovedConsumer) { itemRemovedConsumer.accept(evt); }
-                fireEvent(evt);
-            } else if (null != oldItem && item != null) {
-                MItemEvent<T> evt = new MItemEvent<>(AtomicObservableMatrix.this, ITEM_CHANGED, x, y, oldItem, item);
-                if (null != itemChangedConsumer) { itemChangedConsumer.accept(evt); }
-                fireEvent(evt);
-            } else {
-                return;
+    /**
+     * Atomically sets the given item at the given position and returns the old item
+     * @param x Column of the item
+     * @param y Row of the item
+     * @param item
+     * @return the item that was stored at the given position before
+     */
+    public T getAndSetItemAt(final int x, final int y, final T item) {
+        return getAndSetItemAt(x, y, item, true);
+    }
+    public T getAndSetItemAt(final int x, final int y, final T item, final boolean notify) {
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (!storage.contains(x, y)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+        return getAndSet(storage, x, y, item, notify);
+    }
+
+    /**
+     * Atomically replaces the item at the given position by the result of the given function.
+     * The function might be called more than once if other threads write the same cell
+     * and therefore should not have side effects.
+     * Only one event will be fired that contains the item the function was applied to,
+     * the events of the cell are fired in the order the updates were applied.
+     * @param x        Column of the item
+     * @param y        Row of the item
+     * @param function Function that returns the new item for the current item
+     * @return the new item
+     */
+    public T updateItemAt(final int x, final int y, final UnaryOperator<T> function) {
+        return updateItemAt(x, y, function, true);
+    }
+    public T updateItemAt(final int x, final int y, final UnaryOperator<T> function, final boolean notify) {
+        if (null == function) { throw new IllegalArgumentException("function cannot be null"); }
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (!storage.contains(x, y)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+
+        if (!notify || !hasItemReceivers()) { return update(storage, x, y, function, false); }
+        final T    item;
+        final long mask = stripeBit(x, y);
+        lockStripes(mask);
+        try {
+            item = update(storage, x, y, function, true);
+        } finally {
+            unlockStripes(mask);
+        }
+        fireItemEvents(mask);
+        return item;
+    }
+
+    /**
+     * Atomically replaces the item at the given position by the result of the given
+     * function applied to the current item and the given value, e.g.
+     * accumulateItemAt(x, y, 1, Integer::sum) to use the cell as a counter.
+     * The function might be called more than once if other threads write the same cell
+     * and therefore should not have side effects.
+     * Only one event will be fired that contains the item the function was applied to,
+     * the events of the cell are fired in the order the updates were applied.
+     * @param x        Column of the item
+     * @param y        Row of the item
+     * @param value    Value that will be combined with the current item
+     * @param function Function that combines the current item with the given value
+     * @return the new item
+     */
+    public T accumulateItemAt(final int x, final int y, final T value, final BinaryOperator<T> function) {
+        return accumulateItemAt(x, y, value, function, true);
+    }
+    public T accumulateItemAt(final int x, final int y, final T value, final BinaryOperator<T> function, final boolean notify) {
+        if (null == function) { throw new IllegalArgumentException("function cannot be null"); }
+        return updateItemAt(x, y, item -> function.apply(item, value), notify);
+    }
+
+    /**
+     * Runs the given action while the cells in the given rectangle are locked
+     * against other withRegion(), swapItems() and moveItem() calls on one of
+     * these cells. Regions lock the stripes of their cells in ascending order
+     * so that overlapping regions can not deadlock. The structure of the matrix
+     * can not change while the action runs and the action must not change it.
+     * Items have to be read and written through the given region, the events of
+     * all written cells will be fired after the action finished and the cells
+     * were unlocked.
+     * Single cell methods like setItemAt() only wait for the lock if they have to
+     * notify someone, so all threads that update the same cells together should use regions.
+     * @param x      column of the upper left corner
+     * @param y      row of the upper left corner
+     * @param width  number of columns
+     * @param height number of rows
+     * @param action
+     */
+    public void withRegion(final int x, final int y, final int width, final int height, final Consumer<AtomicMatrixRegion<T>> action) {
+        withRegion(x, y, width, height, action, true);
+    }
+    public void withRegion(final int x, final int y, final int width, final int height, final Consumer<AtomicMatrixRegion<T>> action, final boolean notify) {
+        if (null == action) { throw new IllegalArgumentException("action cannot be null"); }
+        if (width < 1 || height < 1) { throw new IllegalArgumentException("width/height cannot be smaller than 1"); }
+        final AtomicMatrixRegion<T> region;
+        long                        mask = 0;
+        structureLock.readLock().lock();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (x < 0 || y < 0 || x + (long) width > storage.cols || y + (long) height > storage.rows) { throw new IllegalArgumentException("region must be within the matrix"); }
+            for (int col = x ; col < x + width && -1L != mask ; col++) {
+                for (int row = y ; row < y + height ; row++) { mask |= stripeBit(col, row); }
+            }
+            region = new AtomicMatrixRegion<>(storage, x, y, width, height);
+            lockStripes(mask);
+            try {
+                action.accept(region);
+                if (notify) { region.forEachChange(this::itemChanged); }
+            } finally {
+                region.close();
+                unlockStripes(mask);
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+        if (notify) { fireItemEvents(mask); }
+    }
+
+    /**
+     * Swaps the items at the given positions as one update
+     * with respect to withRegion(), swapItems() and moveItem()
+     * @param x1 column of the first item
+     * @param y1 row of the first item
+     * @param x2 column of the second item
+     * @param y2 row of the second item
+     */
+    public void swapItems(final int x1, final int y1, final int x2, final int y2) { swapItems(x1, y1, x2, y2, true); }
+    public void swapItems(final int x1, final int y1, final int x2, final int y2, final boolean notify) {
+        final T item1;
+        final T item2;
+        final T oldItem2;
+        structureLock.readLock().lock();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (!storage.contains(x1, y1) || !storage.contains(x2, y2)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+            final long mask = stripeBit(x1, y1) | stripeBit(x2, y2);
+            lockStripes(mask);
+            try {
+                item2    = storage.get(x2, y2);
+                item1    = storage.getAndSet(x1, y1, item2);
+                oldItem2 = storage.getAndSet(x2, y2, item1);
+                if (notify && (x1 != x2 || y1 != y2)) {
+                    itemChanged(x1, y1, item1, item2);
+                    itemChanged(x2, y2, oldItem2, item1);
+                }
+            } finally {
+                unlockStripes(mask);
             }
+        } finally {
+            structureLock.readLock().unlock();
         }
+        if (notify) { fireItemEvents(stripeBit(x1, y1) | stripeBit(x2, y2)); }
+    }
+
+    /**
+     * Moves the item at the given position to the given target position
+     * and sets the item at the given position to null as one update
+     * with respect to withRegion(), swapItems() and moveItem()
+     * @param fromX column of the item
+     * @param fromY row of the item
+     * @param toX   column of the target position
+     * @param toY   row of the target position
+     * @return the item that was replaced at the target position
+     */
+    public T moveItem(final int fromX, final int fromY, final int toX, final int toY) { return moveItem(fromX, fromY, toX, toY, true); }
+    public T moveItem(final int fromX, final int fromY, final int toX, final int toY, final boolean notify) {
+        final T item;
+        final T oldItem;
+        structureLock.readLock().lock();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (!storage.contains(fromX, fromY) || !storage.contains(toX, toY)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+            if (fromX == toX && fromY == toY) { return storage.get(toX, toY); }
+            final long mask = stripeBit(fromX, fromY) | stripeBit(toX, toY);
+            lockStripes(mask);
+            try {
+                item    = storage.getAndSet(fromX, fromY, null);
+                oldItem = storage.getAndSet(toX, toY, item);
+                if (notify) {
+                    itemChanged(fromX, fromY, item, null);
+                    itemChanged(toX, toY, oldItem, item);
+                }
+            } finally {
+                unlockStripes(mask);
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+        if (notify) { fireItemEvents(stripeBit(fromX, fromY) | stripeBit(toX, toY)); }
+        return oldItem;
     }
 
     /**
@@ -143,14 +385,9 @@ public class AtomicObservableMatrix<T> {
      */
     public void removeItemAt(final int x, final int y) { removeItemAt(x, y, true); }
     public void removeItemAt(final int x, final int y, final boolean notify) {
-        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
-        T oldItem = matrix[x][y].get();
-        matrix[x][y].set(null);
-        if (notify) {
-            MItemEvent<T> evt = new MItemEvent<>(AtomicObservableMatrix.this, ITEM_REMOVED, x, y, oldItem, null);
-            if (null != itemRemovedConsumer) { itemRemovedConsumer.accept(evt); }
-            fireEvent(evt);
-        }
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (!storage.contains(x, y)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+        getAndSet(storage, x, y, null, notify);
         checkForRemovedColumnsAndRows(x, y, notify);
     }
 
@@ -160,18 +397,12 @@ public class AtomicObservableMatrix<T> {
      */
     public void removeItem(final T item) { removeItem(item, true); }
     public void removeItem(final T item, final boolean notify) {
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                T matrixItem = matrix[x][y].get();
-                if (null == matrixItem) {
-                    continue;
-                } else if (matrixItem.equals(item)) {
-                    matrix[x][y].set(null);
-                    if (notify) {
-                        MItemEvent<T> evt = new MItemEvent<>(AtomicObservableMatrix.this, ITEM_REMOVED, x, y, item, null);
-                        if (null != itemRemovedConsumer) { itemRemovedConsumer.accept(evt); }
-                        fireEvent(evt);
-                    }
+        if (null == item) { return; }
+        final AtomicMatrixStorage<T> storage = this.storage;
+        for (int y = 0; y < storage.rows; y++) {
+            for (int x = 0; x < storage.cols; x++) {
+                T matrixItem = storage.get(x, y);
+                if (item.equals(matrixItem) && compareAndSet(storage, x, y, matrixItem, null, notify)) {
                     checkForRemovedColumnsAndRows(x, y, notify);
                     return;
                 }
@@ -184,14 +415,7 @@ public class AtomicObservableMatrix<T> {
      * @param item
      * @return true if the given item will be found in the matrix
      */
-    public boolean contains(final T item) {
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                if (null != matrix[x][y] && matrix[x][y].equals(item)) { return true; }
-            }
-        }
-        return false;
-    }
+    public boolean contains(final T item) { return getIndicesOf(item)[0] != -1; }
 
     /**
      * Returns the indices of the given item as an array of int[],
@@ -202,37 +426,53 @@ public class AtomicObservableMatrix<T> {
      * @return the indices of the given item as an array of in[]
      */
     public int[] getIndicesOf(final T item) {
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                if (matrix[x][y].equals(item)) { return new int[]{x, y}; }
+        if (null != item) {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            for (int y = 0; y < storage.rows; y++) {
+                for (int x = 0; x < storage.cols; x++) {
+                    if (item.equals(storage.get(x, y))) { return new int[]{x, y}; }
+                }
             }
         }
         return new int[]{-1, - 1};
     }
 
     /**
-     * Returns the 2-dimensional array of type <T>
-     * @return the 2-dimensional array of type <T>
+     * Returns a snapshot of the items as 2-dimensional array of type <T> ([col][row]).
+     * Changes to the returned array will not change the matrix.
+     * @return a snapshot of the items as 2-dimensional array of type <T>
      */
-    public AtomicReference<T>[][] getMatrix() { return matrix; }
+    public T[][] getMatrix() {
+        final AtomicMatrixStorage<T> storage = this.storage;
+        T[][] matrix = (T[][]) Array.newInstance(type, storage.cols, storage.rows);
+        for (int x = 0 ; x < storage.cols ; x++) {
+            for (int y = 0 ; y < storage.rows ; y++) {
+                matrix[x][y] = storage.get(x, y);
+            }
+        }
+        return matrix;
+    }
 
     /**
      * Returns all items in matrix that are non null as list
      * @return all items in matrix that are non null as list
      */
-    public List<AtomicReference<T>> getAllItems() { return stream().filter(Objects::nonNull).collect(Collectors.toList()); }
+    public List<T> getAllItems() { return stream().filter(Objects::nonNull).collect(Collectors.toList()); }
 
     /**
-     * Returns all items in matrix as stream
+     * Returns all items in matrix as stream (column by column)
      * @return all items in matrix as stream
      */
-    public Stream<AtomicReference<T>> stream() { return Arrays.stream(matrix).flatMap(t -> Arrays.stream(t)); }
+    public Stream<T> stream() {
+        final AtomicMatrixStorage<T> storage = this.storage;
+        return IntStream.range(0, storage.cols).boxed().flatMap(x -> IntStream.range(0, storage.rows).mapToObj(y -> storage.get(x, y)));
+    }
 
     public void reset() {
-        if (rows == -1 || cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                matrix[x][y].set(null);
+        final AtomicMatrixStorage<T> storage = this.storage;
+        for (int x = 0 ; x < storage.cols ; x++) {
+            for (int y = 0 ; y < storage.rows ; y++) {
+                storage.set(x, y, null);
             }
         }
     }
@@ -243,9 +483,10 @@ public class AtomicObservableMatrix<T> {
      * @return all items in column specified by index as list
      */
     public List<T> getCol(final int col) {
-        if (rows == -1 || cols == -1 || col < 0 || col > cols) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        List<T> c = new ArrayList<>();
-        for (int y = 0 ; y < rows ; y++) { c.add(matrix[col][y].get()); }
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (col < 0 || col >= storage.cols) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        List<T> c = new ArrayList<>(storage.rows);
+        for (int y = 0 ; y < storage.rows ; y++) { c.add(storage.get(col, y)); }
         return c;
     }
 
@@ -255,9 +496,10 @@ public class AtomicObservableMatrix<T> {
      * @return all items in row specified by index as list
      */
     public List<T> getRow(final int row) {
-        if (rows == -1 || cols == -1 || row < 0 || row > rows) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        List<T> r = new ArrayList<>();
-        for (int x = 0 ; x < cols ; x++) { r.add(matrix[x][row].get()); }
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (row < 0 || row >= storage.rows) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        List<T> r = new ArrayList<>(storage.cols);
+        for (int x = 0 ; x < storage.cols ; x++) { r.add(storage.get(x, row)); }
         return r;
     }
 
@@ -267,10 +509,10 @@ public class AtomicObservableMatrix<T> {
      * @return true if all items in given column index equals null
      */
     public boolean isColEmpty(final int col) {
-        List<T> c = getCol(col);
-        long count = 0;
-        for(T item : c) { if (null != item) { count++; }}
-        return 0 == count;
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (col < 0 || col >= storage.cols) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        for (int y = 0 ; y < storage.rows ; y++) { if (null != storage.get(col, y)) { return false; } }
+        return true;
     }
 
     /**
@@ -279,17 +521,17 @@ public class AtomicObservableMatrix<T> {
      * @return true if all items in given row index equals null
      */
     public boolean isRowEmpty(final int row) {
-        List<T> r = getRow(row);
-        long count = 0;
-        for (T item : r) { if (null != item) { count++; }}
-        return 0 == count;
+        final AtomicMatrixStorage<T> storage = this.storage;
+        if (row < 0 || row >= storage.rows) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        for (int x = 0 ; x < storage.cols ; x++) { if (null != storage.get(x, row)) { return false; } }
+        return true;
     }
 
     /**
      * Returns the number of columns in the matrix
      * @return the number of columsn of the matrix
      */
-    public int getNoOfCols() { return cols; }
+    public int getNoOfCols() { return storage.cols; }
 
     /**
      * Sets the number of columsn in the matrix.
@@ -301,34 +543,16 @@ public class AtomicObservableMatrix<T> {
      */
     public void setCols(final int cols) { setCols(cols, true); }
     public void setCols(final int cols, final boolean notify) {
-        if (rows == -1 || cols == -1 || this.cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        AtomicReference<T>[][] oldMatrix = new AtomicReference[cols][rows];
-
-        for (int y = 0 ; y < this.rows ; y++) {
-            for (int x = 0 ; x < this.cols ; x++) {
-                oldMatrix[x][y].set(matrix[x][y].get());
-            }
-        }
-        int oldCols = this.cols;
-        this.cols   = cols;
-        matrix = createArray(type, cols, rows);
-        int c;
-        int r  = rows;
-        if (cols > this.cols) {
-            c = oldCols;
-        } else if (cols < this.cols) {
-            c = cols;
-        } else {
-            c = cols;
-        }
-        for (int y = 0 ; y < r ; y++) {
-            for (int x = 0 ; x < c ; x++) {
-                matrix[x][y].set(oldMatrix[x][y].get());
-            }
+        lockStructure();
+        try {
+            storage = storage.resize(cols, storage.rows);
+        } finally {
+            unlockStructure();
         }
         if (notify) {
             MColumnsEvent evt = new MColumnsEvent(AtomicObservableMatrix.this, NO_OF_COLUMNS_CHANGED, cols);
             if (null != columnsChangedConsumer) { columnsChangedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onNoOfColumnsChanged(evt.getNoOfColumns()); }
             fireEvent(evt);
         }
     }
@@ -340,57 +564,45 @@ public class AtomicObservableMatrix<T> {
      */
     public void addCol(final int at, final Supplier<T> itemSupplier) { addCol(at, itemSupplier, true); }
     public void addCol(final int at, final Supplier<T> itemSupplier, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-
-        cols++;
-
-        AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < at ; x++) {
-                newMatrix[x][y].set(matrix[x][y].get());
-            }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at > storage.cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+
+            AtomicMatrixStorage<T> newStorage = storage.insertCol(at);
+            for (int y = 0 ; y < newStorage.rows ; y++) { newStorage.set(at, y, itemSupplier.get()); }
+            this.storage = newStorage;
+        } finally {
+            unlockStructure();
         }
-        for (int y = 0 ; y < rows ; y++) { newMatrix[at][y].set(itemSupplier.get()); }
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = at + 1 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x - 1][y].get());
-            }
-        }
-
-        matrix = newMatrix;
 
         if (notify) {
             MColumnEvent evt = new MColumnEvent(AtomicObservableMatrix.this, COLUMN_ADDED, at);
             if (null != columnAddedConsumer) { columnAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnAdded(evt.getColumn()); }
             fireEvent(evt);
         }
     }
 
     public void addCol(final int at, final List<T> items) { addCol(at, items, true); }
     public void addCol(final int at, final List<T> items, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-        if (items.size() != rows) { throw new IllegalArgumentException("no of items must be equal to number of rows"); }
-
-        cols++;
-
-        AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < at ; x++) {
-                newMatrix[x][y].set(matrix[x][y].get());
-            }
-        }
-        for (int y = 0 ; y < rows ; y++) { newMatrix[at][y].set(items.get(y)); }
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = at + 1 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x - 1][y].get());
-            }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at > storage.cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+            if (items.size() != storage.rows) { throw new IllegalArgumentException("no of items must be equal to number of rows"); }
+
+            AtomicMatrixStorage<T> newStorage = storage.insertCol(at);
+            for (int y = 0 ; y < newStorage.rows ; y++) { newStorage.set(at, y, items.get(y)); }
+            this.storage = newStorage;
+        } finally {
+            unlockStructure();
         }
 
-        matrix = newMatrix;
-
         if (notify) {
             MColumnEvent evt = new MColumnEvent(AtomicObservableMatrix.this, COLUMN_ADDED, at);
             if (null != columnAddedConsumer) { columnAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnAdded(evt.getColumn()); }
             fireEvent(evt);
         }
     }
@@ -399,27 +611,20 @@ public class AtomicObservableMatrix<T> {
         addNullCol(at, true);
     }
     public void addNullCol(final int at, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-
-        cols++;
-
-        AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < at ; x++) {
-                newMatrix[x][y].set(matrix[x][y].get());
-            }
-        }
-        for (int y = 0 ; y < rows ; y++) { newMatrix[at][y].set(null); }
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = at + 1 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x - 1][y].get());
-            }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at > storage.cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+
+            this.storage = storage.insertCol(at);
+        } finally {
+            unlockStructure();
         }
 
-        matrix = newMatrix;
         if (notify) {
             MColumnEvent evt = new MColumnEvent(AtomicObservableMatrix.this, COLUMN_ADDED, at);
             if (null != columnAddedConsumer) { columnAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnAdded(evt.getColumn()); }
             fireEvent(evt);
         }
     }
@@ -430,33 +635,21 @@ public class AtomicObservableMatrix<T> {
      */
     public void removeCol(final int at) { removeCol(at, true); }
     public void removeCol(final int at, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-        if (cols <= 1) { throw new IllegalArgumentException("there is just one column in the matrix"); }
-
-        for (int y = 0 ; y < getNoOfRows() ; y++) { matrix[at][y].set(null); }
-
-        if (0 == at || (cols - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
-            cols--;
-
-            AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-            for (int y = 0; y < rows; y++) {
-                for (int x = 0; x <= cols; x++) {
-                    if (x < at) {
-                        newMatrix[x][y].set(matrix[x][y].get());
-                    } else if (x == at) {
-
-                    } else {
-                        newMatrix[x - 1][y].set(matrix[x][y].get());
-                    }
-                }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at >= storage.cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+            if (storage.cols <= 1) { throw new IllegalArgumentException("there is just one column in the matrix"); }
+
+            if (0 == at || (storage.cols - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+                this.storage = storage.removeCol(at);
+            } else {
+                for (int y = 0 ; y < storage.rows ; y++) { storage.set(at, y, null); }
             }
-            matrix = newMatrix;
-        }
-        if (notify) {
-            MColumnEvent evt = new MColumnEvent(AtomicObservableMatrix.this, COLUMN_REMOVED, at);
-            if (null != columnRemovedConsumer) { columnRemovedConsumer.accept(evt); }
-            fireEvent(evt);
+        } finally {
+            unlockStructure();
         }
+        if (notify) { fireColumnRemoved(at); }
     }
 
     /**
@@ -466,57 +659,45 @@ public class AtomicObservableMatrix<T> {
      */
     public void addRow(final int at, final Supplier<T> itemSupplier) { addRow(at, itemSupplier, true); }
     public void addRow(final int at, final Supplier<T> itemSupplier, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-
-        rows++;
-
-        AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < at ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x][y].get());
-            }
-        }
-        for (int x = 0 ; x < cols ; x++) { newMatrix[x][at].set(itemSupplier.get()); }
-        for (int y = at + 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x][y - 1].get());
-            }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at > storage.rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+
+            AtomicMatrixStorage<T> newStorage = storage.insertRow(at);
+            for (int x = 0 ; x < newStorage.cols ; x++) { newStorage.set(x, at, itemSupplier.get()); }
+            this.storage = newStorage;
+        } finally {
+            unlockStructure();
         }
 
-        matrix = newMatrix;
-
         if (notify) {
             MRowEvent evt = new MRowEvent(AtomicObservableMatrix.this, ROW_ADDED, at);
             if (null != rowAddedConsumer) { rowAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowAdded(evt.getRow()); }
             fireEvent(evt);
         }
     }
 
     public void addRow(final int at, final List<T> items) { addRow(at, items, true); }
     public void addRow(final int at, final List<T> items, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-        if (items.size() != cols) { throw new IllegalArgumentException("now of items must be equal to number of columns"); }
-
-        rows++;
-
-        AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < at ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x][y].get());
-            }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at > storage.rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+            if (items.size() != storage.cols) { throw new IllegalArgumentException("now of items must be equal to number of columns"); }
+
+            AtomicMatrixStorage<T> newStorage = storage.insertRow(at);
+            for (int x = 0 ; x < newStorage.cols ; x++) { newStorage.set(x, at, items.get(x)); }
+            this.storage = newStorage;
+        } finally {
+            unlockStructure();
         }
-        for (int x = 0 ; x < cols ; x++) { newMatrix[x][at].set(items.get(x)); }
-        for (int y = at + 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x][y - 1].get());
-            }
-        }
-
-        matrix = newMatrix;
 
         if (notify) {
             MRowEvent evt = new MRowEvent(AtomicObservableMatrix.this, ROW_ADDED, at);
             if (null != rowAddedConsumer) { rowAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowAdded(evt.getRow()); }
             fireEvent(evt);
         }
     }
@@ -525,27 +706,20 @@ public class AtomicObservableMatrix<T> {
         addNullRow(at, true);
     }
     public void addNullRow(final int at, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-
-        rows++;
-
-        AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < at ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x][y].get());
-            }
-        }
-        for (int x = 0 ; x < cols ; x++) { newMatrix[x][at].set(null); }
-        for (int y = at + 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y].set(matrix[x][y - 1].get());
-            }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at > storage.rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+
+            this.storage = storage.insertRow(at);
+        } finally {
+            unlockStructure();
         }
 
-        matrix = newMatrix;
         if (notify) {
             MRowEvent evt = new MRowEvent(AtomicObservableMatrix.this, ROW_ADDED, at);
             if (null != rowAddedConsumer) { rowAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowAdded(evt.getRow()); }
             fireEvent(evt);
         }
     }
@@ -556,43 +730,28 @@ public class AtomicObservableMatrix<T> {
      */
     public void removeRow(final int at) { removeRow(at, true); }
     public void removeRow(final int at, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-        if (rows <= 1) { throw new IllegalArgumentException("there is just one row in the matrix"); }
-
-        for (int x = 0 ; x < getNoOfCols() ; x++) { matrix[x][at].set(null); }
-
-        if (0 == at || (rows - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
-            rows--;
-
-            AtomicReference<T>[][] newMatrix = createArray(type, cols, rows);
-            for (int y = 0; y <= rows; y++) {
-                if (y < at) {
-                    for (int x = 0; x < cols; x++) {
-                        newMatrix[x][y].set(matrix[x][y].get());
-                    }
-                } else if (y == at) {
-
-                } else {
-                    for (int x = 0; x < cols; x++) {
-                        newMatrix[x][y - 1].set(matrix[x][y].get());
-                    }
-                }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at < 0 || at >= storage.rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+            if (storage.rows <= 1) { throw new IllegalArgumentException("there is just one row in the matrix"); }
+
+            if (0 == at || (storage.rows - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+                this.storage = storage.removeRow(at);
+            } else {
+                for (int x = 0 ; x < storage.cols ; x++) { storage.set(x, at, null); }
             }
-            matrix = newMatrix;
-        }
-
-        if (notify) {
-            MRowEvent evt = new MRowEvent(AtomicObservableMatrix.this, ROW_REMOVED, at);
-            if (null != rowRemovedConsumer) { rowRemovedConsumer.accept(evt); }
-            fireEvent(evt);
+        } finally {
+            unlockStructure();
         }
+        if (notify) { fireRowRemoved(at); }
     }
 
     /**
      * Returns the number of rows in the matrix
      * @return the number of rows in the matrix
      */
-    public int getNoOfRows() { return rows; }
+    public int getNoOfRows() { return storage.rows; }
 
     /**
      * Sets the number of rows in the matrix.
@@ -604,34 +763,16 @@ public class AtomicObservableMatrix<T> {
      */
     public void setRows(final int rows) { setRows(rows, true); }
     public void setRows(final int rows, final boolean notify) {
-        if (rows == -1 || cols == -1 || this.rows == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        AtomicReference<T>[][] oldMatrix = (AtomicReference<T>[][]) new Object[cols][rows];
-        for (int y = 0 ; y < this.rows ; y++) {
-            for (int x = 0 ; x < this.cols ; x++) {
-                oldMatrix[x][y].set(matrix[x][y].get());
-            }
-        }
-        int oldRows = this.rows;
-        this.rows   = rows;
-        matrix = createArray(type, cols, rows);
-
-        int c  = cols;
-        int r;
-        if (rows > this.rows) {
-            r = oldRows;
-        } else if (rows < this.rows) {
-            r = rows;
-        } else {
-            r = rows;
-        }
-        for (int y = 0 ; y < r ; y++) {
-            for (int x = 0 ; x < c ; x++) {
-                matrix[x][y].set(oldMatrix[x][y].get());
-            }
+        lockStructure();
+        try {
+            storage = storage.resize(storage.cols, rows);
+        } finally {
+            unlockStructure();
         }
         if (notify) {
             MRowsEvent evt = new MRowsEvent(AtomicObservableMatrix.this, NO_OF_ROWS_CHANGED, rows);
             if (null != rowsChangedConsumer) { rowsChangedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onNoOfRowsChanged(evt.getNoOfRows()); }
             fireEvent(evt);
         }
     }
@@ -644,7 +785,7 @@ public class AtomicObservableMatrix<T> {
     public List<Integer> getAllEmptyColumns() {
         List<Integer> emptyColumns = new ArrayList<>();
         for (int x = 0; x < getNoOfCols() ; x++) {
-            if (getCol(x).stream().filter(Objects::nonNull).count() == 0) { emptyColumns.add(x); }
+            if (isColEmpty(x)) { emptyColumns.add(x); }
         }
         return emptyColumns;
     }
@@ -657,40 +798,55 @@ public class AtomicObservableMatrix<T> {
     public List<Integer> getAllEmptyRows() {
         List<Integer> emptyRows = new ArrayList<>();
         for (int y = 0; y < getNoOfRows() ; y++) {
-            if (getRow(y).stream().filter(Objects::nonNull).count() == 0) { emptyRows.add(y); }
+            if (isRowEmpty(y)) { emptyRows.add(y); }
         }
         return emptyRows;
     }
 
+    /**
+     * Mirrors the columns of the matrix in O(1). Only the order in which
+     * the cells are accessed will be reversed, call materialize() if the
+     * physical layout of the matrix should also be mirrored.
+     */
     public void mirrorColumns() { mirrorColumns(true); }
     public void mirrorColumns(final boolean notify) {
-        for(int i = 0; i < (matrix.length/2); i++) {
-            AtomicReference<T>[] temp = matrix[i];
-            matrix[i] = matrix[matrix.length - i - 1];
-            matrix[matrix.length - i - 1] = temp;
+        final AtomicMatrixStorage<T> storage;
+        lockStructure();
+        try {
+            storage      = this.storage.mirrorCols();
+            this.storage = storage;
+            colsMirrored = !colsMirrored;
+        } finally {
+            unlockStructure();
         }
-        colsMirrored = !colsMirrored;
         if (notify) {
-            MColumnsEvent evt = new MColumnsEvent(AtomicObservableMatrix.this, COLUMNS_MIRRORED, cols);
+            MColumnsEvent evt = new MColumnsEvent(AtomicObservableMatrix.this, COLUMNS_MIRRORED, storage.cols);
             if (null != columnsMirroredConsumer) { columnsMirroredConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnsMirrored(evt.getNoOfColumns()); }
             fireEvent(evt);
         }
     }
 
+    /**
+     * Mirrors the rows of the matrix in O(1). Only the order in which
+     * the cells are accessed will be reversed, call materialize() if the
+     * physical layout of the matrix should also be mirrored.
+     */
     public void mirrorRows() { mirrorRows(true); }
     public void mirrorRows(final boolean notify) {
-        for (int j = 0; j < matrix.length; ++j) {
-            AtomicReference<T>[] row = matrix[j];
-            for(int i = 0; i < (row.length/2); i++) {
-                T temp = row[i].get();
-                row[i].set(matrix[j][row.length - i - 1].get());
-                row[row.length - i - 1].set(temp);
-            }
+        final AtomicMatrixStorage<T> storage;
+        lockStructure();
+        try {
+            storage      = this.storage.mirrorRows();
+            this.storage = storage;
+            rowsMirrored = !rowsMirrored;
+        } finally {
+            unlockStructure();
         }
-        rowsMirrored = !rowsMirrored;
         if (notify) {
-            MRowsEvent evt = new MRowsEvent(AtomicObservableMatrix.this, ROWS_MIRRORED, rows);
+            MRowsEvent evt = new MRowsEvent(AtomicObservableMatrix.this, ROWS_MIRRORED, storage.rows);
             if (null != rowsMirroredConsumer) { rowsMirroredConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowsMirrored(evt.getNoOfRows()); }
             fireEvent(evt);
         }
     }
@@ -698,72 +854,278 @@ public class AtomicObservableMatrix<T> {
     public boolean getColsMirrored() { return colsMirrored; }
     public boolean getRowsMirrored() { return rowsMirrored; }
 
+    /**
+     * Applies pending mirroring to the matrix so that its physical layout
+     * matches the logical one. This is O(n) and does not fire any events
+     * because the items at each position of the matrix stay the same.
+     */
+    public void materialize() {
+        lockStructure();
+        try {
+            storage = storage.materialize();
+        } finally {
+            unlockStructure();
+        }
+    }
+
     public boolean getResizeMatrixWhenInnerRowOrColIsRemoved() { return resizeMatrixWhenInnerRowOrColIsRemoved; }
     public void setResizeMatrixWhenInnerRowOrColIsRemoved(final boolean resize) { resizeMatrixWhenInnerRowOrColIsRemoved = resize; }
 
 
     // ******************** Private methods ***********************************
+    private static long stripeBit(final int x, final int y) { return 1L << ((31 * x + y) & (NO_OF_STRIPES - 1)); }
+
     /**
-     * Method to reduce matrix size in case the first column is empty (all items == null)
+     * Sets the given item at the given position, if the change has to be passed on
+     * the stripe of the cell is locked while the item is set and the listeners are informed
+     * @return the item that was replaced
      */
-    private void shiftLeft() {
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 1 ; x < cols ; x++) {
-                matrix[x - 1][y].set(matrix[x][y].get());
-            }
+    private T getAndSet(final AtomicMatrixStorage<T> storage, final int x, final int y, final T item, final boolean notify) {
+        if (!notify || !hasItemReceivers()) { return storage.getAndSet(x, y, item); }
+        final T    oldItem;
+        final long mask = stripeBit(x, y);
+        lockStripes(mask);
+        try {
+            oldItem = storage.getAndSet(x, y, item);
+            itemChanged(x, y, oldItem, item);
+        } finally {
+            unlockStripes(mask);
+        }
+        fireItemEvents(mask);
+        return oldItem;
+    }
+
+    private boolean compareAndSet(final AtomicMatrixStorage<T> storage, final int x, final int y, final T expectedItem, final T item, final boolean notify) {
+        if (!notify || !hasItemReceivers()) { return storage.compareAndSet(x, y, expectedItem, item); }
+        final long mask = stripeBit(x, y);
+        lockStripes(mask);
+        try {
+            if (!storage.compareAndSet(x, y, expectedItem, item)) { return false; }
+            itemChanged(x, y, expectedItem, item);
+        } finally {
+            unlockStripes(mask);
         }
+        fireItemEvents(mask);
+        return true;
     }
 
     /**
-     * Method to reduce matrix size in case the first row is empty (all items == null)
+     * Replaces the item at the given position by the result of the given function,
+     * the stripe of the cell must be locked if the change should be passed on
+     * @return the new item
      */
-    private void shiftUp() {
-        for (int y = 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                matrix[x][y - 1].set(matrix[x][y].get());
-            }
-        }
+    private T update(final AtomicMatrixStorage<T> storage, final int x, final int y, final UnaryOperator<T> function, final boolean notify) {
+        T oldItem;
+        T item;
+        do {
+            oldItem = storage.get(x, y);
+            item    = function.apply(oldItem);
+        } while (!storage.compareAndSet(x, y, oldItem, item));
+        if (notify) { itemChanged(x, y, oldItem, item); }
+        return item;
     }
 
     /**
-     * Returns a 2-dimensional array of the given type <T> and size
-     * @param type Class of generic type
-     * @param cols Number of columns for the matrix
-     * @param rows Number of rows for the matrix
-     * @param <T>
-     * @return a 2-dimensional array of the given type <T> and size
+     * Returns true if an item change would reach a change listener, consumer or observer
+     * @return true if item changes have to be passed on
      */
-    private static <T> AtomicReference<T>[][] createArray(final Class type, final int cols, final int rows) {
-        if (null == type) { throw new IllegalArgumentException("type cannot be null"); }
-        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+    private boolean hasItemReceivers() {
+        return 0 != changeListeners.length || null != itemAddedConsumer || null != itemRemovedConsumer || null != itemChangedConsumer ||
+               dispatcher.hasObservers(ITEM_ADDED) || dispatcher.hasObservers(ITEM_REMOVED) || dispatcher.hasObservers(ITEM_CHANGED);
+    }
 
-        AtomicReference<T>[][] emptyMatrix = new AtomicReference[cols][rows];
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                emptyMatrix[x][y] = new AtomicReference<>();
+    /**
+     * Informs the change listeners about the change of the given cell and queues
+     * its MItemEvent, the stripe of the cell must be locked by the current thread
+     * so that the changes of a cell are passed on in the order they were applied.
+     * The event will only be created if there is a consumer or observer for it.
+     * @param x
+     * @param y
+     * @param oldItem
+     * @param item
+     */
+    private void itemChanged(final int x, final int y, final T oldItem, final T item) {
+        if (null == oldItem && null == item) { return; }
+        for (MChangeListener<T> listener : changeListeners) { listener.onItemChanged(x, y, oldItem, item); }
+        final MItemEvent<T> evt = createItemEvent(x, y, oldItem, item);
+        if (null == evt) { return; }
+        final int stripe = Long.numberOfTrailingZeros(stripeBit(x, y));
+        pendingItemEvents[stripe].add(evt);
+        noOfPendingItemEvents.incrementAndGet(stripe);
+    }
+
+    /**
+     * Fires the queued events of the stripes of the given bit mask in the order
+     * they were queued. Only one thread at a time fires the events of a stripe,
+     * if another thread is firing them already it will also fire the events that
+     * were queued by the current thread. Events that are queued by an observer
+     * of the current thread will be fired after the current event.
+     * @param mask
+     */
+    private void fireItemEvents(final long mask) {
+        RuntimeException exception = null;
+        for (long bits = mask ; 0 != bits ; bits &= bits - 1) {
+            final int           stripe   = Long.numberOfTrailingZeros(bits);
+            final ReentrantLock delivery = deliveries[stripe];
+            // Check again after unlocking because another thread might have queued an event in between
+            while (0 != noOfPendingItemEvents.get(stripe) && !delivery.isHeldByCurrentThread() && delivery.tryLock()) {
+                try {
+                    for (MItemEvent<T> evt = pollItemEvent(stripe) ; null != evt ; evt = pollItemEvent(stripe)) {
+                        try {
+                            fireItemEvent(evt);
+                        } catch (RuntimeException e) {
+                            if (null == exception) { exception = e; } else { exception.addSuppressed(e); }
+                        }
+                    }
+                } finally {
+                    delivery.unlock();
+                }
             }
         }
-        return emptyMatrix;
+        if (null != exception) { throw exception; }
     }
 
-    private void checkForRemovedColumnsAndRows(final int removedItemCol, final int removedItemRow, final boolean notify) {
-        int nullItemCounter = 0;
-        for (int r = 0 ; r < rows ; r++) {
-            if (null == getItemAt(removedItemCol, r)) { nullItemCounter++; }
+    private MItemEvent<T> pollItemEvent(final int stripe) {
+        final ReentrantLock lock = stripes[stripe];
+        lock.lock();
+        try {
+            final MItemEvent<T> evt = pendingItemEvents[stripe].poll();
+            if (null != evt) { noOfPendingItemEvents.decrementAndGet(stripe); }
+            return evt;
+        } finally {
+            lock.unlock();
         }
-        if (nullItemCounter == rows) {
-            removeCol(removedItemCol, notify);
-            return;
+    }
+
+    /**
+     * Locks the stripes of the given bit mask in ascending order
+     * @param mask
+     */
+    private void lockStripes(final long mask) {
+        for (long bits = mask ; 0 != bits ; bits &= bits - 1) { stripes[Long.numberOfTrailingZeros(bits)].lock(); }
+    }
+
+    private void unlockStripes(final long mask) {
+        for (long bits = mask ; 0 != bits ; bits &= bits - 1) { stripes[Long.numberOfTrailingZeros(bits)].unlock(); }
+    }
+
+    private void lockStructure() {
+        if (structureLock.getReadHoldCount() > 0) { throw new IllegalStateException("the structure of the matrix cannot be changed within a region"); }
+        structureLock.writeLock().lock();
+    }
+
+    private void unlockStructure() { structureLock.writeLock().unlock(); }
+
+    /**
+     * Returns a new MItemEvent for the given change or null if there is no consumer or observer for it
+     * @param x
+     * @param y
+     * @param oldItem
+     * @param item
+     * @return a new MItemEvent for the given change or null
+     */
+    private MItemEvent<T> createItemEvent(final int x, final int y, final T oldItem, final T item) {
+        final MEventType<MItemEvent<?>> type;
+        final Consumer<MItemEvent<T>>   consumer;
+        if (null == oldItem) {
+            type     = ITEM_ADDED;
+            consumer = itemAddedConsumer;
+        } else if (null == item) {
+            type     = ITEM_REMOVED;
+            consumer = itemRemovedConsumer;
+        } else {
+            type     = ITEM_CHANGED;
+            consumer = itemChangedConsumer;
         }
+        if (null == consumer && !dispatcher.hasObservers(type)) { return null; }
+        return new MItemEvent<>(AtomicObservableMatrix.this, type, x, y, oldItem, item);
+    }
 
-        nullItemCounter = 0;
-        for (int c = 0 ; c < cols ; c++) {
-            if (null == getItemAt(c, removedItemRow)) { nullItemCounter++; }
+    private void fireItemEvent(final MItemEvent<T> evt) {
+        final MEventType<? extends MEvent> type = evt.getEventType();
+        final Consumer<MItemEvent<T>>      consumer;
+        if (ITEM_ADDED == type) {
+            consumer = itemAddedConsumer;
+        } else if (ITEM_REMOVED == type) {
+            consumer = itemRemovedConsumer;
+        } else {
+            consumer = itemChangedConsumer;
         }
-        if (nullItemCounter == cols) {
-            removeRow(removedItemRow, notify);
-            return;
+        if (null != consumer) { consumer.accept(evt); }
+        fireEvent(evt);
+    }
+
+    private void checkForRemovedColumnsAndRows(final int removedItemCol, final int removedItemRow, final boolean notify) {
+        if (!removeEmptyCol(removedItemCol, notify)) { removeEmptyRow(removedItemRow, notify); }
+    }
+
+    /**
+     * Removes the given column if it is empty. The emptiness is checked again
+     * while the structure is locked and the cells of the column are sealed
+     * while they are empty, so an item that is set concurrently by a lock-free
+     * write will either prevent the removal or end up in the new storage.
+     * @param at
+     * @param notify
+     * @return true if the column was removed
+     */
+    private boolean removeEmptyCol(final int at, final boolean notify) {
+        if (at >= storage.cols || !isColEmpty(at)) { return false; }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at >= storage.cols || storage.cols <= 1) { return false; }
+            if (0 == at || (storage.cols - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+                final AtomicMatrixStorage<T> newStorage = storage.removeEmptyCol(at);
+                if (null == newStorage) { return false; }
+                this.storage = newStorage;
+            } else if (!isColEmpty(at)) {
+                return false;
+            }
+        } finally {
+            unlockStructure();
         }
+        if (notify) { fireColumnRemoved(at); }
+        return true;
+    }
+
+    /**
+     * Removes the given row if it is empty, see removeEmptyCol()
+     * @param at
+     * @param notify
+     * @return true if the row was removed
+     */
+    private boolean removeEmptyRow(final int at, final boolean notify) {
+        if (at >= storage.rows || !isRowEmpty(at)) { return false; }
+        lockStructure();
+        try {
+            final AtomicMatrixStorage<T> storage = this.storage;
+            if (at >= storage.rows || storage.rows <= 1) { return false; }
+            if (0 == at || (storage.rows - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+                final AtomicMatrixStorage<T> newStorage = storage.removeEmptyRow(at);
+                if (null == newStorage) { return false; }
+                this.storage = newStorage;
+            } else if (!isRowEmpty(at)) {
+                return false;
+            }
+        } finally {
+            unlockStructure();
+        }
+        if (notify) { fireRowRemoved(at); }
+        return true;
+    }
+
+    private void fireColumnRemoved(final int at) {
+        MColumnEvent evt = new MColumnEvent(AtomicObservableMatrix.this, COLUMN_REMOVED, at);
+        if (null != columnRemovedConsumer) { columnRemovedConsumer.accept(evt); }
+        for (MChangeListener<T> listener : changeListeners) { listener.onColumnRemoved(evt.getColumn()); }
+        fireEvent(evt);
+    }
+
+    private void fireRowRemoved(final int at) {
+        MRowEvent evt = new MRowEvent(AtomicObservableMatrix.this, ROW_REMOVED, at);
+        if (null != rowRemovedConsumer) { rowRemovedConsumer.accept(evt); }
+        for (MChangeListener<T> listener : changeListeners) { listener.onRowRemoved(evt.getRow()); }
+        fireEvent(evt);
     }
 
 
@@ -831,69 +1193,105 @@ public class AtomicObservableMatrix<T> {
      * @param type     The type of event that should be observed
      * @param observer An MObserver<T>
      */
-    public void setOnMEvent(final MEventType<? extends MEvent> type, final MObserver observer) {
-        if (!observers.keySet().contains(type.getName())) { observers.put(type.getName(), new CopyOnWriteArrayList<>()); }
-        if (!observers.get(type.getName()).contains(observer)) { observers.get(type.getName()).add(observer); }
-    }
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer) { dispatcher.addObserver(type, observer); }
+
+    /**
+     * Add the given MObserver for the given TYPE to the map of observers.
+     * The observer will be called on the given executor (e.g. a thread pool
+     * or a virtual thread per task executor) so that a slow observer does
+     * not delay the thread that changes the matrix. Each observer gets the
+     * events in the order they were fired.
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     * @param executor The executor that runs the observer
+     */
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer, final Executor executor) { dispatcher.addObserver(type, observer, executor); }
 
     /**
      * Remove the given MObserver<T> for the given TYPE from the map of observers
      * @param type     The type of event that should be observed
      * @param observer An MObserver<T>
      */
-    public void removeOnMEvent(final MEventType<? extends MEvent> type, final MObserver observer) {
-        if (!observers.keySet().contains(type.getName())) { return; }
-        if (observers.get(type.getName()).contains(observer)) { observers.get(type.getName()).remove(observer); }
-    }
+    public void removeOnMEvent(final MEventType<? extends MEvent> type, final MObserver<?> observer) { dispatcher.removeObserver(type, observer); }
 
     /**
      * Removes all observers
      */
-    public void removeAllObservers() { observers.entrySet().forEach(entry -> entry.getValue().clear()); }
-
+    public void removeAllObservers() { dispatcher.removeAllObservers(); }
 
-    void fireEvent(final MEvent event) {
-        final MEventType<? extends MEvent> type = event.getEventType();
+    /**
+     * Waits until all observers that were added with an executor have handled
+     * the events that were fired before (e.g. in tests)
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return false if the timeout elapsed before all events were handled
+     * @throws InterruptedException
+     */
+    public boolean awaitEvents(final long timeout, final TimeUnit unit) throws InterruptedException { return dispatcher.awaitAsyncObservers(timeout, unit); }
 
-        // Trigger specific observers first
-        observers.entrySet()
-                 .stream()
-                 .filter(entry -> entry.getKey().equals(type.getName()))
-                 .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
+    /**
+     * Returns a publisher of all MEvents of this matrix with backpressure.
+     * Each subscriber gets its own buffer of at most bufferSize events and
+     * receives the events in order on the common ForkJoinPool. The given
+     * overflowPolicy decides what happens if a subscriber is too slow.
+     * @param bufferSize     max number of buffered events per subscriber
+     * @param overflowPolicy BLOCK, DROP_OLDEST or CONFLATE
+     * @return a publisher of all MEvents of this matrix
+     */
+    public MFlow.Publisher<MEvent> publisher(final int bufferSize, final OverflowPolicy overflowPolicy) { return publisher(bufferSize, overflowPolicy, ForkJoinPool.commonPool()); }
+    /**
+     * Returns a publisher of all MEvents of this matrix with backpressure
+     * that calls the subscribers on the given executor.
+     * A subscriber that changes the matrix in onNext() must not use the
+     * BLOCK or CONFLATE policy, because it might wait for itself.
+     * @param bufferSize     max number of buffered events per subscriber
+     * @param overflowPolicy BLOCK, DROP_OLDEST or CONFLATE
+     * @param executor       The executor that calls the subscribers
+     * @return a publisher of all MEvents of this matrix
+     */
+    public MFlow.Publisher<MEvent> publisher(final int bufferSize, final OverflowPolicy overflowPolicy, final Executor executor) {
+        return new MatrixPublisher(dispatcher, bufferSize, overflowPolicy, executor);
+    }
 
-        // Trigger all observers that subscribed to .ANY event types
-        observers.entrySet()
-                 .stream()
-                 .filter(entry -> entry.getKey().equals(MEvent.ANY.getName()))
-                 .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
+    /**
+     * Adds the given listener that will be informed about all changes of
+     * the matrix without creating event objects. Item changes will also be
+     * passed to the listeners during a batch update.
+     * @param listener An MChangeListener<T>
+     */
+    public synchronized void addChangeListener(final MChangeListener<T> listener) {
+        if (null == listener || Arrays.asList(changeListeners).contains(listener)) { return; }
+        final MChangeListener<T>[] listeners = Arrays.copyOf(changeListeners, changeListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        changeListeners = listeners;
+    }
 
-        if (ITEM_ADDED.equals(type) || ITEM_CHANGED.equals(type) || ITEM_REMOVED.equals(type)) {
-            observers.entrySet()
-                     .stream()
-                     .filter(entry -> entry.getKey().equals(MItemEvent.ANY.getName()))
-                     .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
-        } else if (COLUMN_ADDED.equals(type) || COLUMN_REMOVED.equals(type)) {
-            observers.entrySet()
-                     .stream()
-                     .filter(entry -> entry.getKey().equals(MColumnEvent.ANY.getName()))
-                     .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
-        } else if (ROW_ADDED.equals(type) || ROW_REMOVED.equals(type)) {
-            observers.entrySet()
-                     .stream()
-                     .filter(entry -> entry.getKey().equals(MRowEvent.ANY.getName()))
-                     .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
-        }
+    /**
+     * Removes the given listener
+     * @param listener An MChangeListener<T>
+     */
+    public synchronized void removeChangeListener(final MChangeListener<T> listener) {
+        final int index = Arrays.asList(changeListeners).indexOf(listener);
+        if (-1 == index) { return; }
+        final MChangeListener<T>[] listeners = Arrays.copyOf(changeListeners, changeListeners.length - 1);
+        System.arraycopy(changeListeners, index + 1, listeners, index, listeners.length - index);
+        changeListeners = listeners;
     }
 
 
+    void fireEvent(final MEvent event) { dispatcher.fireEvent(event); }
+
+
     @Override public String toString() {
+        final AtomicMatrixStorage<T> storage = this.storage;
         StringBuilder output = new StringBuilder();
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                output.append(matrix[x][y]).append(" ");
+        for (int y = 0 ; y < storage.rows ; y++) {
+            for (int x = 0 ; x < storage.cols ; x++) {
+                output.append(storage.get(x, y)).append(" ");
             }
             output.append("\n");
         }
         return output.toString();
     }
+
 }
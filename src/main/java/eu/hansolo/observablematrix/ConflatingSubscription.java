@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Collects the changes of a matrix and passes only the latest item of each
+ * changed cell to a listener when drain() is called, e.g. once per frame
+ * from an AnimationTimer or at a fixed rate on a ScheduledExecutorService.
+ * So the listener is called once per changed cell and tick and not once per
+ * write. The old item is the item the cell had before the first change since
+ * the last drain, cells that got their old item back are skipped.
+ * The subscription is an MChangeListener, add it to a matrix with addChangeListener().
+ * Structural changes are passed in order, the cells that were changed before
+ * a structural change are passed before it with the positions they had then.
+ * @param <T>
+ */
+public final class ConflatingSubscription<T> implements MChangeListener<T> {
+    private static final   int                COLUMN_ADDED       = 0;
+    private static final   int                COLUMN_REMOVED     = 1;
+    private static final   int                ROW_ADDED          = 2;
+    private static final   int                ROW_REMOVED        = 3;
+    private static final   int                NO_OF_COLS_CHANGED = 4;
+    private static final   int                NO_OF_ROWS_CHANGED = 5;
+    private static final   int                COLUMNS_MIRRORED   = 6;
+    private static final   int                ROWS_MIRRORED      = 7;
+    private final          MChangeListener<T> listener;
+    private final          Object             lock;
+    private final          Object             drainLock;
+    private                Cells              cells;
+    private                Cells              spareCells;
+    private                List<Object>       pending;
+
+
+    // ******************** Constructors **************************************
+    public ConflatingSubscription(final MChangeListener<T> listener) {
+        if (null == listener) { throw new IllegalArgumentException("listener cannot be null"); }
+        this.listener   = listener;
+        this.lock       = new Object();
+        this.drainLock  = new Object();
+        this.cells      = new Cells();
+        this.spareCells = new Cells();
+        this.pending    = new ArrayList<>();
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Passes the changes that were collected since the last call to the
+     * listener on the calling thread
+     * @return the number of cells that were passed to the listener
+     */
+    public int drain() {
+        synchronized (drainLock) {
+            final List<Object> drainedPending;
+            final Cells        drainedCells;
+            synchronized (lock) {
+                if (pending.isEmpty() && cells.isEmpty()) { return 0; }
+                if (pending.isEmpty()) {
+                    drainedPending = Collections.emptyList();
+                } else {
+                    drainedPending = pending;
+                    pending        = new ArrayList<>();
+                }
+                drainedCells = cells;
+                cells        = null == spareCells ? new Cells() : spareCells;
+                spareCells   = null;
+            }
+            int noOfCells = 0;
+            try {
+                for (Object change : drainedPending) {
+                    if (change instanceof Cells) {
+                        noOfCells += deliver((Cells) change);
+                    } else {
+                        deliver((StructuralChange) change);
+                    }
+                }
+                noOfCells += deliver(drainedCells);
+            } finally {
+                drainedCells.clear();
+                synchronized (lock) { spareCells = drainedCells; }
+            }
+            return noOfCells;
+        }
+    }
+
+    /**
+     * Calls drain() at the given rate on the given executor, exceptions of
+     * the listener are passed to the uncaught exception handler of the thread
+     * @param executor
+     * @param period
+     * @param unit
+     * @return the ScheduledFuture to cancel the draining
+     */
+    public ScheduledFuture<?> drainAtFixedRate(final ScheduledExecutorService executor, final long period, final TimeUnit unit) {
+        if (null == executor) { throw new IllegalArgumentException("executor cannot be null"); }
+        return executor.scheduleAtFixedRate(() -> {
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Returns the number of changed cells that will be passed
+     * to the listener with the next drain()
+     * @return the number of changed cells that will be passed with the next drain()
+     */
+    public int getNoOfPendingCells() {
+        synchronized (lock) {
+            int noOfCells = cells.size;
+            for (Object change : pending) {
+                if (change instanceof Cells) { noOfCells += ((Cells) change).size; }
+            }
+            return noOfCells;
+        }
+    }
+
+    public boolean hasPendingChanges() {
+        synchronized (lock) { return !pending.isEmpty() || !cells.isEmpty(); }
+    }
+
+    @Override public void onItemChanged(final int x, final int y, final T oldItem, final T item) {
+        synchronized (lock) { cells.put(MatrixItemIndex.key(x, y), oldItem, item); }
+    }
+
+    @Override public void onColumnAdded(final int column) { addStructuralChange(COLUMN_ADDED, column); }
+
+    @Override public void onColumnRemoved(final int column) { addStructuralChange(COLUMN_REMOVED, column); }
+
+    @Override public void onRowAdded(final int row) { addStructuralChange(ROW_ADDED, row); }
+
+    @Override public void onRowRemoved(final int row) { addStructuralChange(ROW_REMOVED, row); }
+
+    @Override public void onNoOfColumnsChanged(final int noOfColumns) { addStructuralChange(NO_OF_COLS_CHANGED, noOfColumns); }
+
+    @Override public void onNoOfRowsChanged(final int noOfRows) { addStructuralChange(NO_OF_ROWS_CHANGED, noOfRows); }
+
+    @Override public void onColumnsMirrored(final int noOfColumns) { addStructuralChange(COLUMNS_MIRRORED, noOfColumns); }
+
+    @Override public void onRowsMirrored(final int noOfRows) { addStructuralChange(ROWS_MIRRORED, noOfRows); }
+
+
+    // ******************** Private methods ***********************************
+    /**
+     * Closes the cells that were changed so far, so that they will be passed
+     * before the structural change, and adds the structural change
+     */
+    private void addStructuralChange(final int kind, final int value) {
+        synchronized (lock) {
+            if (!cells.isEmpty()) {
+                pending.add(cells);
+                cells = new Cells();
+            }
+            pending.add(new StructuralChange(kind, value));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int deliver(final Cells cells) {
+        int noOfCells = 0;
+        for (int i = 0 ; i < cells.size ; i++) {
+            final T oldItem = (T) cells.oldItems[i];
+            final T item    = (T) cells.items[i];
+            if (oldItem == item) { continue; }
+            listener.onItemChanged(MatrixItemIndex.col(cells.keys[i]), MatrixItemIndex.row(cells.keys[i]), oldItem, item);
+            noOfCells++;
+        }
+        return noOfCells;
+    }
+
+    private void deliver(final StructuralChange change) {
+        switch (change.kind) {
+            case COLUMN_ADDED      : listener.onColumnAdded(change.value); break;
+            case COLUMN_REMOVED    : listener.onColumnRemoved(change.value); break;
+            case ROW_ADDED         : listener.onRowAdded(change.value); break;
+            case ROW_REMOVED       : listener.onRowRemoved(change.value); break;
+            case NO_OF_COLS_CHANGED: listener.onNoOfColumnsChanged(change.value); break;
+            case NO_OF_ROWS_CHANGED: listener.onNoOfRowsChanged(change.value); break;
+            case COLUMNS_MIRRORED  : listener.onColumnsMirrored(change.value); break;
+            case ROWS_MIRRORED     : listener.onRowsMirrored(change.value); break;
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class StructuralChange {
+        private final int kind;
+        private final int value;
+
+
+        StructuralChange(final int kind, final int value) {
+            this.kind  = kind;
+            this.value = value;
+        }
+    }
+
+
+    /**
+     * The changed cells in the order of their first change, an open addressing
+     * hash table from the packed position to the index of the cell keeps the
+     * writes free of allocations once the table is large enough
+     */
+    private static final class Cells {
+        private static final int      INITIAL_CAPACITY = 16;
+        private              int      size;
+        private              int[]    table;
+        private              long[]   keys;
+        private              Object[] oldItems;
+        private              Object[] items;
+
+
+        Cells() {
+            this.size     = 0;
+            this.table    = new int[INITIAL_CAPACITY * 2];
+            this.keys     = new long[INITIAL_CAPACITY];
+            this.oldItems = new Object[INITIAL_CAPACITY];
+            this.items    = new Object[INITIAL_CAPACITY];
+        }
+
+
+        boolean isEmpty() { return 0 == size; }
+
+        /**
+         * Sets the latest item of the given cell, the old item is only kept for the first change
+         * @param key
+         * @param oldItem
+         * @param item
+         */
+        void put(final long key, final Object oldItem, final Object item) {
+            final int mask  = table.length - 1;
+            int       index = hash(key) & mask;
+            while (0 != table[index]) {
+                final int cell = table[index] - 1;
+                if (keys[cell] == key) {
+                    items[cell] = item;
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            if (size == keys.length) {
+                grow();
+                put(key, oldItem, item);
+                return;
+            }
+            table[index]   = size + 1;
+            keys[size]     = key;
+            oldItems[size] = oldItem;
+            items[size]    = item;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(table, 0);
+            Arrays.fill(oldItems, 0, size, null);
+            Arrays.fill(items, 0, size, null);
+            size = 0;
+        }
+
+        private void grow() {
+            final int capacity = keys.length * 2;
+            keys     = Arrays.copyOf(keys, capacity);
+            oldItems = Arrays.copyOf(oldItems, capacity);
+            items    = Arrays.copyOf(items, capacity);
+            table    = new int[capacity * 2];
+            final int mask = table.length - 1;
+            for (int cell = 0 ; cell < size ; cell++) {
+                int index = hash(keys[cell]) & mask;
+                while (0 != table[index]) { index = (index + 1) & mask; }
+                table[index] = cell + 1;
+            }
+        }
+
+        private static int hash(final long key) {
+            final int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -35,13 +35,14 @@ import java.util.Random;
  * Time: 15:34
  */
 public class Demo extends Application {
-    private static final Random                    RND  = new Random();
-    private static final int                       COLS = 3;
-    private static final int                       ROWS = 2;
-    private              ObservableMatrix<Integer> integerMatrix;
-    private              GridPane                  grid;
-    private              long                      lastTimerCall;
-    private              AnimationTimer            timer;
+    private static final Random                          RND  = new Random();
+    private static final int                             COLS = 3;
+    private static final int                             ROWS = 2;
+    private              ObservableMatrix<Integer>       integerMatrix;
+    private              ConflatingSubscription<Integer> labelUpdates;
+    private              GridPane                        grid;
+    private              long                            lastTimerCall;
+    private              AnimationTimer                  timer;
 
 
     @Override public void init() {
@@ -109,11 +110,13 @@ public class Demo extends Application {
         }
 
 
-        integerMatrix.setOnItemChanged(e -> {
-            Node node = getNodeAt(e.getX(), e.getY(), grid);
+        // Only the latest value of each changed cell will be rendered once per pulse
+        labelUpdates = new ConflatingSubscription<>((x, y, oldItem, item) -> {
+            Node node = getNodeAt(x, y, grid);
             if (null == node) { return; }
-            ((Label) node).setText(Integer.toString(e.getItem()));
+            ((Label) node).setText(Integer.toString(item));
         });
+        integerMatrix.addChangeListener(labelUpdates);
 
         // Other examples
         /*
@@ -200,6 +203,7 @@ public class Demo extends Application {
 
                     lastTimerCall = now;
                 }
+                labelUpdates.drain();
             }
         };
     }
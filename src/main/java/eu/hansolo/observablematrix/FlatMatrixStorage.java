@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+
+/**
+ * Stores all items in one contiguous array.
+ * In row major layout the items of one row are next to each other,
+ * in column major layout the items of one column are next to each other.
+ * Internally the array is organized in major blocks (rows or columns)
+ * that contain the minor items (the cells of that row or column).
+ * Like an ArrayList the array can hold more majors and minors than
+ * currently used, the spare cells are always null. If the capacity
+ * is exceeded it grows by 50% so that adding columns or rows one by
+ * one is amortized O(1) per cell.
+ * @param <T>
+ */
+final class FlatMatrixStorage<T> implements MatrixStorage<T> {
+    private final Class<T> type;
+    private final boolean  rowMajor;
+    private       Object[] data;
+    private       int      majorCapacity;
+    private       int      minorCapacity;
+    private       int      cols;
+    private       int      rows;
+    private       int      noOfItems;
+
+
+    // ******************** Constructors **************************************
+    FlatMatrixStorage(final Class<T> type, final int cols, final int rows, final boolean rowMajor) {
+        if (null == type) { throw new IllegalArgumentException("type cannot be null"); }
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        this.type          = type;
+        this.rowMajor      = rowMajor;
+        this.data          = new Object[cols * rows];
+        this.majorCapacity = rowMajor ? rows : cols;
+        this.minorCapacity = rowMajor ? cols : rows;
+        this.cols          = cols;
+        this.rows          = rows;
+        this.noOfItems     = 0;
+    }
+
+
+    // ******************** Methods *******************************************
+    @SuppressWarnings("unchecked")
+    @Override public T get(final int x, final int y) { return (T) data[index(x, y)]; }
+
+    @Override public void set(final int x, final int y, final T item) {
+        final int    index   = index(x, y);
+        final Object oldItem = data[index];
+        data[index] = item;
+        if (null == oldItem) {
+            if (null != item) { noOfItems++; }
+        } else if (null == item) {
+            noOfItems--;
+        }
+    }
+
+    @Override public int getCols() { return cols; }
+
+    @Override public int getRows() { return rows; }
+
+    @Override public int getNoOfItems() { return noOfItems; }
+
+    @SuppressWarnings("unchecked")
+    @Override public void forEachItem(final ItemConsumer<T> consumer) {
+        final int majors = majors();
+        final int minors = minors();
+        for (int major = 0 ; major < majors ; major++) {
+            final int offset = major * minorCapacity;
+            for (int minor = 0 ; minor < minors ; minor++) {
+                final Object item = data[offset + minor];
+                if (null == item) { continue; }
+                if (rowMajor) {
+                    consumer.accept(minor, major, (T) item);
+                } else {
+                    consumer.accept(major, minor, (T) item);
+                }
+            }
+        }
+    }
+
+    @Override public void insertCol(final int at) {
+        if (rowMajor) { insertMinor(at); } else { insertMajor(at); }
+        cols++;
+    }
+
+    @Override public void removeCol(final int at) {
+        if (rowMajor) { removeMinor(at); } else { removeMajor(at); }
+        cols--;
+    }
+
+    @Override public void insertRow(final int at) {
+        if (rowMajor) { insertMajor(at); } else { insertMinor(at); }
+        rows++;
+    }
+
+    @Override public void removeRow(final int at) {
+        if (rowMajor) { removeMajor(at); } else { removeMinor(at); }
+        rows--;
+    }
+
+    @Override public void resize(final int cols, final int rows) {
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        final int majors    = majors();
+        final int minors    = minors();
+        final int newMajors = rowMajor ? rows : cols;
+        final int newMinors = rowMajor ? cols : rows;
+        for (int major = newMajors ; major < majors ; major++) { clear(major * minorCapacity, major * minorCapacity + minors); }
+        if (newMinors < minors) {
+            for (int major = 0 ; major < Math.min(majors, newMajors) ; major++) { clear(major * minorCapacity + newMinors, major * minorCapacity + minors); }
+        }
+        if (newMajors > majorCapacity || newMinors > minorCapacity) {
+            setCapacity(newMajors > majorCapacity ? ArrayMatrixStorage.grow(majorCapacity, newMajors) : majorCapacity,
+                        newMinors > minorCapacity ? ArrayMatrixStorage.grow(minorCapacity, newMinors) : minorCapacity,
+                        Math.min(majors, newMajors), Math.min(minors, newMinors));
+        }
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    @Override public void ensureCapacity(final int cols, final int rows) {
+        final int majors = rowMajor ? rows : cols;
+        final int minors = rowMajor ? cols : rows;
+        if (majors > majorCapacity || minors > minorCapacity) {
+            setCapacity(Math.max(majorCapacity, majors), Math.max(minorCapacity, minors), majors(), minors());
+        }
+    }
+
+    @Override public void trimToSize() {
+        final int majors = majors();
+        final int minors = minors();
+        if (majors < majorCapacity || minors < minorCapacity) { setCapacity(majors, minors, majors, minors); }
+    }
+
+    @Override public void clear() {
+        Arrays.fill(data, null);
+        noOfItems = 0;
+    }
+
+    @Override public void mirrorCols() {
+        if (rowMajor) { reverseMinors(); } else { reverseMajors(); }
+    }
+
+    @Override public void mirrorRows() {
+        if (rowMajor) { reverseMajors(); } else { reverseMinors(); }
+    }
+
+    @Override public boolean contains(final Object item) {
+        for (Object o : data) {
+            if (null != o && o.equals(item)) { return true; }
+        }
+        return false;
+    }
+
+    @Override public long indexOf(final Object item) {
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                T matrixItem = get(x, y);
+                if (null != matrixItem && matrixItem.equals(item)) { return ((long) x << 32) | y; }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a copy of the items as 2-dimensional array [col][row]
+     * @return a copy of the items as 2-dimensional array [col][row]
+     */
+    @SuppressWarnings("unchecked")
+    @Override public T[][] toArray() {
+        T[][] array = (T[][]) Array.newInstance(type, cols, rows);
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                array[x][y] = get(x, y);
+            }
+        }
+        return array;
+    }
+
+
+    // ******************** Private methods ***********************************
+    private int index(final int x, final int y) { return rowMajor ? y * minorCapacity + x : x * minorCapacity + y; }
+
+    private int majors() { return rowMajor ? rows : cols; }
+
+    private int minors() { return rowMajor ? cols : rows; }
+
+    /**
+     * Sets the cells in the given range to null and updates the number of items
+     * @param from
+     * @param to
+     */
+    private void clear(final int from, final int to) {
+        for (int i = from ; i < to ; i++) {
+            if (null != data[i]) {
+                data[i] = null;
+                noOfItems--;
+            }
+        }
+    }
+
+    /**
+     * Reallocates the array with the given capacity and copies the given
+     * number of majors and minors into it
+     * @param majorCapacity
+     * @param minorCapacity
+     * @param majors
+     * @param minors
+     */
+    private void setCapacity(final int majorCapacity, final int minorCapacity, final int majors, final int minors) {
+        Object[] newData = new Object[majorCapacity * minorCapacity];
+        if (minorCapacity == this.minorCapacity) {
+            System.arraycopy(data, 0, newData, 0, majors * minorCapacity);
+        } else {
+            for (int i = 0 ; i < majors ; i++) { System.arraycopy(data, i * this.minorCapacity, newData, i * minorCapacity, minors); }
+        }
+        data               = newData;
+        this.majorCapacity = majorCapacity;
+        this.minorCapacity = minorCapacity;
+    }
+
+    private void insertMajor(final int at) {
+        final int majors = majors();
+        if (majors == majorCapacity) { setCapacity(ArrayMatrixStorage.grow(majorCapacity, majors + 1), minorCapacity, majors, minors()); }
+        System.arraycopy(data, at * minorCapacity, data, (at + 1) * minorCapacity, (majors - at) * minorCapacity);
+        Arrays.fill(data, at * minorCapacity, (at + 1) * minorCapacity, null);
+    }
+
+    private void removeMajor(final int at) {
+        final int majors = majors();
+        clear(at * minorCapacity, (at + 1) * minorCapacity);
+        System.arraycopy(data, (at + 1) * minorCapacity, data, at * minorCapacity, (majors - at - 1) * minorCapacity);
+        Arrays.fill(data, (majors - 1) * minorCapacity, majors * minorCapacity, null);
+    }
+
+    private void insertMinor(final int at) {
+        final int majors = majors();
+        final int minors = minors();
+        if (minors == minorCapacity) { setCapacity(majorCapacity, ArrayMatrixStorage.grow(minorCapacity, minors + 1), majors, minors); }
+        for (int i = 0 ; i < majors ; i++) {
+            final int offset = i * minorCapacity;
+            System.arraycopy(data, offset + at, data, offset + at + 1, minors - at);
+            data[offset + at] = null;
+        }
+    }
+
+    private void removeMinor(final int at) {
+        final int majors = majors();
+        final int minors = minors();
+        for (int i = 0 ; i < majors ; i++) {
+            final int offset = i * minorCapacity;
+            if (null != data[offset + at]) { noOfItems--; }
+            System.arraycopy(data, offset + at + 1, data, offset + at, minors - at - 1);
+            data[offset + minors - 1] = null;
+        }
+    }
+
+    private void reverseMajors() {
+        final int majors = majors();
+        final int minors = minors();
+        Object[]  temp   = new Object[minors];
+        for (int i = 0 ; i < majors / 2 ; i++) {
+            final int lower = i * minorCapacity;
+            final int upper = (majors - i - 1) * minorCapacity;
+            System.arraycopy(data, lower, temp, 0, minors);
+            System.arraycopy(data, upper, data, lower, minors);
+            System.arraycopy(temp, 0, data, upper, minors);
+        }
+    }
+
+    private void reverseMinors() {
+        final int majors = majors();
+        final int minors = minors();
+        for (int i = 0 ; i < majors ; i++) {
+            final int offset = i * minorCapacity;
+            for (int j = 0 ; j < minors / 2 ; j++) {
+                Object temp = data[offset + j];
+                data[offset + j] = data[offset + minors - j - 1];
+                data[offset + minors - j - 1] = temp;
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+
+/**
+ * Stores the items in one physical row major array that is addressed
+ * through a logical to physical map for the columns and the rows.
+ * Inserting or removing a column or row only shifts the entries of
+ * the map and takes a physical column or row from (or returns it to)
+ * a list of free ones, so the cells itself are not copied.
+ * Free physical columns and rows always contain null items.
+ * If no free column or row is left the physical array grows by 50%.
+ * @param <T>
+ */
+final class IndexedMatrixStorage<T> implements MatrixStorage<T> {
+    private final Class<T> type;
+    private       Object[] data;
+    private       int      physicalCols;
+    private       int      physicalRows;
+    private       int[]    colMap;
+    private       int[]    rowMap;
+    private       int[]    freeCols;
+    private       int[]    freeRows;
+    private       int      noOfFreeCols;
+    private       int      noOfFreeRows;
+    private       int      cols;
+    private       int      rows;
+    private       int      noOfItems;
+
+
+    // ******************** Constructors **************************************
+    IndexedMatrixStorage(final Class<T> type, final int cols, final int rows) {
+        if (null == type) { throw new IllegalArgumentException("type cannot be null"); }
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        this.type         = type;
+        this.data         = new Object[cols * rows];
+        this.physicalCols = cols;
+        this.physicalRows = rows;
+        this.colMap       = identity(cols);
+        this.rowMap       = identity(rows);
+        this.freeCols     = new int[cols];
+        this.freeRows     = new int[rows];
+        this.noOfFreeCols = 0;
+        this.noOfFreeRows = 0;
+        this.cols         = cols;
+        this.rows         = rows;
+        this.noOfItems    = 0;
+    }
+
+
+    // ******************** Methods *******************************************
+    @SuppressWarnings("unchecked")
+    @Override public T get(final int x, final int y) { return (T) data[rowMap[y] * physicalCols + colMap[x]]; }
+
+    @Override public void set(final int x, final int y, final T item) {
+        final int    index   = rowMap[y] * physicalCols + colMap[x];
+        final Object oldItem = data[index];
+        data[index] = item;
+        if (null == oldItem) {
+            if (null != item) { noOfItems++; }
+        } else if (null == item) {
+            noOfItems--;
+        }
+    }
+
+    @Override public int getCols() { return cols; }
+
+    @Override public int getRows() { return rows; }
+
+    @Override public int getNoOfItems() { return noOfItems; }
+
+    @SuppressWarnings("unchecked")
+    @Override public void forEachItem(final ItemConsumer<T> consumer) {
+        for (int y = 0 ; y < rows ; y++) {
+            final int offset = rowMap[y] * physicalCols;
+            for (int x = 0 ; x < cols ; x++) {
+                Object item = data[offset + colMap[x]];
+                if (null != item) { consumer.accept(x, y, (T) item); }
+            }
+        }
+    }
+
+    @Override public void insertCol(final int at) {
+        if (0 == noOfFreeCols) { growCols(ArrayMatrixStorage.grow(physicalCols, physicalCols + 1)); }
+        final int col = freeCols[--noOfFreeCols];
+        System.arraycopy(colMap, at, colMap, at + 1, cols - at);
+        colMap[at] = col;
+        cols++;
+    }
+
+    @Override public void removeCol(final int at) {
+        final int col = colMap[at];
+        for (int y = 0 ; y < rows ; y++) {
+            final int index = rowMap[y] * physicalCols + col;
+            if (null != data[index]) {
+                data[index] = null;
+                noOfItems--;
+            }
+        }
+        System.arraycopy(colMap, at + 1, colMap, at, cols - at - 1);
+        cols--;
+        freeCols[noOfFreeCols++] = col;
+    }
+
+    @Override public void insertRow(final int at) {
+        if (0 == noOfFreeRows) { growRows(ArrayMatrixStorage.grow(physicalRows, physicalRows + 1)); }
+        final int row = freeRows[--noOfFreeRows];
+        System.arraycopy(rowMap, at, rowMap, at + 1, rows - at);
+        rowMap[at] = row;
+        rows++;
+    }
+
+    @Override public void removeRow(final int at) {
+        final int offset = rowMap[at] * physicalCols;
+        for (int x = 0 ; x < cols ; x++) {
+            final int index = offset + colMap[x];
+            if (null != data[index]) {
+                data[index] = null;
+                noOfItems--;
+            }
+        }
+        freeRows[noOfFreeRows++] = rowMap[at];
+        System.arraycopy(rowMap, at + 1, rowMap, at, rows - at - 1);
+        rows--;
+    }
+
+    @Override public void resize(final int cols, final int rows) {
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        while (this.cols > cols) { removeCol(this.cols - 1); }
+        while (this.rows > rows) { removeRow(this.rows - 1); }
+        if (cols - this.cols > noOfFreeCols) { growCols(ArrayMatrixStorage.grow(physicalCols, physicalCols + cols - this.cols - noOfFreeCols)); }
+        if (rows - this.rows > noOfFreeRows) { growRows(ArrayMatrixStorage.grow(physicalRows, physicalRows + rows - this.rows - noOfFreeRows)); }
+        while (this.cols < cols) { insertCol(this.cols); }
+        while (this.rows < rows) { insertRow(this.rows); }
+    }
+
+    @Override public void ensureCapacity(final int cols, final int rows) {
+        if (cols - this.cols > noOfFreeCols) { growCols(physicalCols + cols - this.cols - noOfFreeCols); }
+        if (rows - this.rows > noOfFreeRows) { growRows(physicalRows + rows - this.rows - noOfFreeRows); }
+    }
+
+    /**
+     * Copies the used cells into a new array without free columns and rows,
+     * afterwards the logical and the physical order are the same again
+     */
+    @Override public void trimToSize() {
+        if (0 == noOfFreeCols && 0 == noOfFreeRows) { return; }
+        Object[] newData = new Object[cols * rows];
+        for (int y = 0 ; y < rows ; y++) {
+            final int offset = rowMap[y] * physicalCols;
+            for (int x = 0 ; x < cols ; x++) { newData[y * cols + x] = data[offset + colMap[x]]; }
+        }
+        data         = newData;
+        physicalCols = cols;
+        physicalRows = rows;
+        colMap       = identity(cols);
+        rowMap       = identity(rows);
+        freeCols     = new int[cols];
+        freeRows     = new int[rows];
+        noOfFreeCols = 0;
+        noOfFreeRows = 0;
+    }
+
+    @Override public void clear() {
+        Arrays.fill(data, null);
+        noOfItems = 0;
+    }
+
+    @Override public void mirrorCols() { reverse(colMap, cols); }
+
+    @Override public void mirrorRows() { reverse(rowMap, rows); }
+
+    @Override public boolean contains(final Object item) {
+        if (null == item) { return false; }
+        for (Object o : data) {
+            if (null != o && o.equals(item)) { return true; }
+        }
+        return false;
+    }
+
+    @Override public long indexOf(final Object item) {
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                T matrixItem = get(x, y);
+                if (null != matrixItem && matrixItem.equals(item)) { return ((long) x << 32) | y; }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a copy of the items as 2-dimensional array [col][row]
+     * @return a copy of the items as 2-dimensional array [col][row]
+     */
+    @SuppressWarnings("unchecked")
+    @Override public T[][] toArray() {
+        T[][] array = (T[][]) Array.newInstance(type, cols, rows);
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                array[x][y] = get(x, y);
+            }
+        }
+        return array;
+    }
+
+
+    // ******************** Private methods ***********************************
+    private void growCols(final int newPhysicalCols) {
+        Object[] newData = new Object[newPhysicalCols * physicalRows];
+        for (int row = 0 ; row < physicalRows ; row++) { System.arraycopy(data, row * physicalCols, newData, row * newPhysicalCols, physicalCols); }
+        data     = newData;
+        colMap   = Arrays.copyOf(colMap, newPhysicalCols);
+        freeCols = Arrays.copyOf(freeCols, newPhysicalCols);
+        for (int col = newPhysicalCols - 1 ; col >= physicalCols ; col--) { freeCols[noOfFreeCols++] = col; }
+        physicalCols = newPhysicalCols;
+    }
+
+    private void growRows(final int newPhysicalRows) {
+        data     = Arrays.copyOf(data, physicalCols * newPhysicalRows);
+        rowMap   = Arrays.copyOf(rowMap, newPhysicalRows);
+        freeRows = Arrays.copyOf(freeRows, newPhysicalRows);
+        for (int row = newPhysicalRows - 1 ; row >= physicalRows ; row--) { freeRows[noOfFreeRows++] = row; }
+        physicalRows = newPhysicalRows;
+    }
+
+    private static int[] identity(final int length) {
+        int[] map = new int[length];
+        for (int i = 0 ; i < length ; i++) { map[i] = i; }
+        return map;
+    }
+
+    private static void reverse(final int[] map, final int length) {
+        for (int i = 0 ; i < length / 2 ; i++) {
+            int temp = map[i];
+            map[i] = map[length - i - 1];
+            map[length - i - 1] = temp;
+        }
+    }
+}
@@ -0,0 +1,607 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MColumnEvent;
+import eu.hansolo.observablematrix.event.MColumnsEvent;
+import eu.hansolo.observablematrix.event.MEvent;
+import eu.hansolo.observablematrix.event.MEventType;
+import eu.hansolo.observablematrix.event.MLongItemEvent;
+import eu.hansolo.observablematrix.event.MObserver;
+import eu.hansolo.observablematrix.event.MRowEvent;
+import eu.hansolo.observablematrix.event.MRowsEvent;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static eu.hansolo.observablematrix.event.MColumnEvent.COLUMN_ADDED;
+import static eu.hansolo.observablematrix.event.MColumnEvent.COLUMN_REMOVED;
+import static eu.hansolo.observablematrix.event.MColumnsEvent.COLUMNS_MIRRORED;
+import static eu.hansolo.observablematrix.event.MColumnsEvent.NO_OF_COLUMNS_CHANGED;
+import static eu.hansolo.observablematrix.event.MLongItemEvent.ITEM_CHANGED;
+import static eu.hansolo.observablematrix.event.MRowEvent.ROW_ADDED;
+import static eu.hansolo.observablematrix.event.MRowEvent.ROW_REMOVED;
+import static eu.hansolo.observablematrix.event.MRowsEvent.NO_OF_ROWS_CHANGED;
+import static eu.hansolo.observablematrix.event.MRowsEvent.ROWS_MIRRORED;
+
+
+/**
+ * An observable matrix of primitive long values.
+ * The values are stored row by row in one long[] so no Long objects
+ * will be created when reading or writing items.
+ * Because a long cannot be null, 0 is used as the empty value.
+ */
+public class LongObservableMatrix {
+    private final          MEventDispatcher             dispatcher;
+    private                long[]                       matrix;
+    private       volatile int                          cols;
+    private       volatile int                          rows;
+    private                boolean                      colsMirrored;
+    private                boolean                      rowsMirrored;
+    private                Consumer<MLongItemEvent>      itemChangedConsumer;
+    private                Consumer<MColumnEvent>       columnAddedConsumer;
+    private                Consumer<MColumnEvent>       columnRemovedConsumer;
+    private                Consumer<MRowEvent>          rowAddedConsumer;
+    private                Consumer<MRowEvent>          rowRemovedConsumer;
+    private                Consumer<MColumnsEvent>      columnsChangedConsumer;
+    private                Consumer<MRowsEvent>         rowsChangedConsumer;
+    private                Consumer<MColumnsEvent>      columnsMirroredConsumer;
+    private                Consumer<MRowsEvent>         rowsMirroredConsumer;
+    private                boolean                      resizeMatrixWhenInnerRowOrColIsRemoved;
+
+
+    // ******************** Constructors **************************************
+    public LongObservableMatrix(final int cols, final int rows) {
+        this(cols, rows, false);
+    }
+    public LongObservableMatrix(final int cols, final int rows, final boolean resizeMatrixWhenInnerRowOrColIsRemoved) {
+        this.dispatcher                             = new MEventDispatcher();
+        this.matrix                                 = createArray(cols, rows);
+        this.cols                                   = cols;
+        this.rows                                   = rows;
+        this.colsMirrored                           = false;
+        this.rowsMirrored                           = false;
+        this.resizeMatrixWhenInnerRowOrColIsRemoved = resizeMatrixWhenInnerRowOrColIsRemoved;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the value in the matrix at the given position defined by x and y
+     * @param x Column used to return item
+     * @param y Row used to return item
+     * @return the value in the matrix at the given position defined by x and y
+     */
+    public long getItemAt(final int x, final int y) {
+        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+        return matrix[y * cols + x];
+    }
+
+    /**
+     * Sets the given value in the matrix at the given position defined by x and y
+     * @param x Column where the given value will be inserted
+     * @param y Row where the given value will be inserted
+     * @param item
+     */
+    public void setItemAt(final int x, final int y, final long item) {
+        setItemAt(x, y, item, true);
+    }
+    public void setItemAt(final int x, final int y, final long item, final boolean notify) {
+        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+
+        final int index   = y * cols + x;
+        final long oldItem = matrix[index];
+        matrix[index] = item;
+
+        if (notify && oldItem != item && (null != itemChangedConsumer || dispatcher.hasObservers(ITEM_CHANGED))) {
+            MLongItemEvent evt = new MLongItemEvent(LongObservableMatrix.this, ITEM_CHANGED, x, y, oldItem, item);
+            if (null != itemChangedConsumer) { itemChangedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    /**
+     * Resets the value at position defined by x and y to 0
+     * @param x Column where the value will be set to 0
+     * @param y Row where the value will be set to 0
+     */
+    public void removeItemAt(final int x, final int y) { removeItemAt(x, y, true); }
+    public void removeItemAt(final int x, final int y, final boolean notify) { setItemAt(x, y, 0, notify); }
+
+    /**
+     * If the given value is found in the matrix the first position (row by row)
+     * of it will be reset to 0
+     * @param item Value to remove from matrix
+     */
+    public void removeItem(final long item) { removeItem(item, true); }
+    public void removeItem(final long item, final boolean notify) {
+        if (0 == item) { return; }
+        final int[] indices = getIndicesOf(item);
+        if (-1 == indices[0]) { return; }
+        setItemAt(indices[0], indices[1], 0, notify);
+    }
+
+    /**
+     * Returns true if the given value will be found in the matrix
+     * @param item
+     * @return true if the given value will be found in the matrix
+     */
+    public boolean contains(final long item) {
+        final int size = cols * rows;
+        for (int i = 0 ; i < size ; i++) {
+            if (matrix[i] == item) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the indices of the given value as an array of int[],
+     * where [0] contains the column and
+     * [1] contains the row of the value
+     * In case the value was not found the method will return [-1, -1]
+     * @param item
+     * @return the indices of the given value as an array of in[]
+     */
+    public int[] getIndicesOf(final long item) {
+        final int size = cols * rows;
+        for (int i = 0 ; i < size ; i++) {
+            if (matrix[i] == item) { return new int[]{ i % cols, i / cols }; }
+        }
+        return new int[]{-1, - 1};
+    }
+
+    /**
+     * Returns a copy of the matrix as 2-dimensional array where
+     * the first index is the column and the second index is the row
+     * @return a copy of the matrix as 2-dimensional array
+     */
+    public long[][] getMatrix() {
+        long[][] copy = new long[cols][rows];
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                copy[x][y] = matrix[y * cols + x];
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns all values in matrix that are not 0 (column by column)
+     * @return all values in matrix that are not 0
+     */
+    public long[] getAllItems() { return stream().filter(item -> 0 != item).toArray(); }
+
+    /**
+     * Returns all values in matrix as stream (column by column)
+     * @return all values in matrix as stream
+     */
+    public LongStream stream() {
+        final long[] m = matrix;
+        final int   c = cols;
+        final int   r = rows;
+        return IntStream.range(0, c * r).mapToLong(i -> m[(i % r) * c + (i / r)]);
+    }
+
+    /**
+     * Sets all values in the matrix to 0
+     */
+    public void reset() {
+        if (rows == -1 || cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        Arrays.fill(matrix, 0, cols * rows, 0);
+    }
+
+    /**
+     * Get all values in column specified by index as array
+     * @param col index of column to return as array
+     * @return all values in column specified by index as array
+     */
+    public long[] getCol(final int col) {
+        if (rows == -1 || cols == -1 || col < 0 || col >= cols) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        long[] c = new long[rows];
+        for (int y = 0 ; y < rows ; y++) { c[y] = matrix[y * cols + col]; }
+        return c;
+    }
+
+    /**
+     * Get all values in row specified by index as array
+     * @param row index of row to return as array
+     * @return all values in row specified by index as array
+     */
+    public long[] getRow(final int row) {
+        if (rows == -1 || cols == -1 || row < 0 || row >= rows) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        long[] r = new long[cols];
+        System.arraycopy(matrix, row * cols, r, 0, cols);
+        return r;
+    }
+
+    /**
+     * Returns true if all values in given column index are 0
+     * @param col
+     * @return true if all values in given column index are 0
+     */
+    public boolean isColEmpty(final int col) {
+        if (col < 0 || col >= cols) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        for (int y = 0 ; y < rows ; y++) { if (0 != matrix[y * cols + col]) { return false; } }
+        return true;
+    }
+
+    /**
+     * Returns true if all values in given row index are 0
+     * @param row
+     * @return true if all values in given row index are 0
+     */
+    public boolean isRowEmpty(final int row) {
+        if (row < 0 || row >= rows) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        final int offset = row * cols;
+        for (int x = 0 ; x < cols ; x++) { if (0 != matrix[offset + x]) { return false; } }
+        return true;
+    }
+
+    /**
+     * Returns the number of columns in the matrix
+     * @return the number of columns of the matrix
+     */
+    public int getNoOfCols() { return cols; }
+
+    /**
+     * Sets the number of columns in the matrix.
+     * Existing values will be copied to the new matrix.
+     * If the number of columns is smaller than the old
+     * one, all values in columns outside of the new matrix
+     * will be lost.
+     * @param cols
+     */
+    public void setCols(final int cols) { setCols(cols, true); }
+    public void setCols(final int cols, final boolean notify) {
+        if (rows == -1 || cols == -1 || this.cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        long[] newMatrix = createArray(cols, rows);
+        int   c         = Math.min(cols, this.cols);
+        for (int y = 0 ; y < rows ; y++) { System.arraycopy(matrix, y * this.cols, newMatrix, y * cols, c); }
+        matrix    = newMatrix;
+        this.cols = cols;
+        if (notify) {
+            MColumnsEvent evt = new MColumnsEvent(LongObservableMatrix.this, NO_OF_COLUMNS_CHANGED, cols);
+            if (null != columnsChangedConsumer) { columnsChangedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    /**
+     * Adds a column at the given position in the matrix and fills it with the values from the itemSupplier
+     * @param at position of where to add the new column
+     * @param itemSupplier supplier of values
+     */
+    public void addCol(final int at, final LongSupplier itemSupplier) { addCol(at, itemSupplier, true); }
+    public void addCol(final int at, final LongSupplier itemSupplier, final boolean notify) {
+        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+        long[] items = new long[rows];
+        for (int y = 0 ; y < rows ; y++) { items[y] = itemSupplier.getAsLong(); }
+        addCol(at, items, notify);
+    }
+
+    public void addCol(final int at, final long[] items) { addCol(at, items, true); }
+    public void addCol(final int at, final long[] items, final boolean notify) {
+        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+        if (items.length != rows) { throw new IllegalArgumentException("no of items must be equal to number of rows"); }
+
+        long[] newMatrix = createArray(cols + 1, rows);
+        for (int y = 0 ; y < rows ; y++) {
+            System.arraycopy(matrix, y * cols, newMatrix, y * (cols + 1), at);
+            newMatrix[y * (cols + 1) + at] = items[y];
+            System.arraycopy(matrix, y * cols + at, newMatrix, y * (cols + 1) + at + 1, cols - at);
+        }
+        matrix = newMatrix;
+        cols++;
+
+        if (notify) {
+            MColumnEvent evt = new MColumnEvent(LongObservableMatrix.this, COLUMN_ADDED, at);
+            if (null != columnAddedConsumer) { columnAddedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    /**
+     * Adds a column of 0 values at the given position in the matrix
+     * @param at position of where to add the new column
+     */
+    public void addNullCol(final int at) { addNullCol(at, true); }
+    public void addNullCol(final int at, final boolean notify) { addCol(at, new long[rows], notify); }
+
+    /**
+     * Removes col at given index
+     * @param at index of col that should be removed
+     */
+    public void removeCol(final int at) { removeCol(at, true); }
+    public void removeCol(final int at, final boolean notify) {
+        if (at < 0 || at >= cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+        if (cols <= 1) { throw new IllegalArgumentException("there is just one column in the matrix"); }
+
+        if (0 == at || (cols - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+            long[] newMatrix = createArray(cols - 1, rows);
+            for (int y = 0 ; y < rows ; y++) {
+                System.arraycopy(matrix, y * cols, newMatrix, y * (cols - 1), at);
+                System.arraycopy(matrix, y * cols + at + 1, newMatrix, y * (cols - 1) + at, cols - at - 1);
+            }
+            matrix = newMatrix;
+            cols--;
+        } else {
+            for (int y = 0 ; y < rows ; y++) { matrix[y * cols + at] = 0; }
+        }
+        if (notify) {
+            MColumnEvent evt = new MColumnEvent(LongObservableMatrix.this, COLUMN_REMOVED, at);
+            if (null != columnRemovedConsumer) { columnRemovedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    /**
+     * Adds a row at the given position in the matrix and fills it with the values from the itemSupplier
+     * @param at position of where to add the new row
+     * @param itemSupplier supplier of values
+     */
+    public void addRow(final int at, final LongSupplier itemSupplier) { addRow(at, itemSupplier, true); }
+    public void addRow(final int at, final LongSupplier itemSupplier, final boolean notify) {
+        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+        long[] items = new long[cols];
+        for (int x = 0 ; x < cols ; x++) { items[x] = itemSupplier.getAsLong(); }
+        addRow(at, items, notify);
+    }
+
+    public void addRow(final int at, final long[] items) { addRow(at, items, true); }
+    public void addRow(final int at, final long[] items, final boolean notify) {
+        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+        if (items.length != cols) { throw new IllegalArgumentException("no of items must be equal to number of columns"); }
+
+        long[] newMatrix = createArray(cols, rows + 1);
+        System.arraycopy(matrix, 0, newMatrix, 0, at * cols);
+        System.arraycopy(items, 0, newMatrix, at * cols, cols);
+        System.arraycopy(matrix, at * cols, newMatrix, (at + 1) * cols, (rows - at) * cols);
+        matrix = newMatrix;
+        rows++;
+
+        if (notify) {
+            MRowEvent evt = new MRowEvent(LongObservableMatrix.this, ROW_ADDED, at);
+            if (null != rowAddedConsumer) { rowAddedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    /**
+     * Adds a row of 0 values at the given position in the matrix
+     * @param at position of where to add the new row
+     */
+    public void addNullRow(final int at) { addNullRow(at, true); }
+    public void addNullRow(final int at, final boolean notify) { addRow(at, new long[cols], notify); }
+
+    /**
+     * Removes row at given index
+     * @param at index of row that should be removed
+     */
+    public void removeRow(final int at) { removeRow(at, true); }
+    public void removeRow(final int at, final boolean notify) {
+        if (at < 0 || at >= rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+        if (rows <= 1) { throw new IllegalArgumentException("there is just one row in the matrix"); }
+
+        if (0 == at || (rows - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+            long[] newMatrix = createArray(cols, rows - 1);
+            System.arraycopy(matrix, 0, newMatrix, 0, at * cols);
+            System.arraycopy(matrix, (at + 1) * cols, newMatrix, at * cols, (rows - at - 1) * cols);
+            matrix = newMatrix;
+            rows--;
+        } else {
+            Arrays.fill(matrix, at * cols, (at + 1) * cols, 0);
+        }
+
+        if (notify) {
+            MRowEvent evt = new MRowEvent(LongObservableMatrix.this, ROW_REMOVED, at);
+            if (null != rowRemovedConsumer) { rowRemovedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    /**
+     * Returns the number of rows in the matrix
+     * @return the number of rows in the matrix
+     */
+    public int getNoOfRows() { return rows; }
+
+    /**
+     * Sets the number of rows in the matrix.
+     * Existing values will be copied to the new matrix.
+     * If the new number of rows is smaller than the old
+     * one, all values in rows outside the new matrix will
+     * be lost.
+     * @param rows
+     */
+    public void setRows(final int rows) { setRows(rows, true); }
+    public void setRows(final int rows, final boolean notify) {
+        if (rows == -1 || cols == -1 || this.rows == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+        long[] newMatrix = createArray(cols, rows);
+        System.arraycopy(matrix, 0, newMatrix, 0, Math.min(rows, this.rows) * cols);
+        matrix    = newMatrix;
+        this.rows = rows;
+        if (notify) {
+            MRowsEvent evt = new MRowsEvent(LongObservableMatrix.this, NO_OF_ROWS_CHANGED, rows);
+            if (null != rowsChangedConsumer) { rowsChangedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    public void mirrorColumns() { mirrorColumns(true); }
+    public void mirrorColumns(final boolean notify) {
+        for (int y = 0 ; y < rows ; y++) {
+            final int offset = y * cols;
+            for (int i = 0 ; i < cols / 2 ; i++) {
+                long temp = matrix[offset + i];
+                matrix[offset + i] = matrix[offset + cols - i - 1];
+                matrix[offset + cols - i - 1] = temp;
+            }
+        }
+        colsMirrored = !colsMirrored;
+        if (notify) {
+            MColumnsEvent evt = new MColumnsEvent(LongObservableMatrix.this, COLUMNS_MIRRORED, cols);
+            if (null != columnsMirroredConsumer) { columnsMirroredConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    public void mirrorRows() { mirrorRows(true); }
+    public void mirrorRows(final boolean notify) {
+        long[] temp = new long[cols];
+        for (int i = 0 ; i < rows / 2 ; i++) {
+            final int top    = i * cols;
+            final int bottom = (rows - i - 1) * cols;
+            System.arraycopy(matrix, top, temp, 0, cols);
+            System.arraycopy(matrix, bottom, matrix, top, cols);
+            System.arraycopy(temp, 0, matrix, bottom, cols);
+        }
+        rowsMirrored = !rowsMirrored;
+        if (notify) {
+            MRowsEvent evt = new MRowsEvent(LongObservableMatrix.this, ROWS_MIRRORED, rows);
+            if (null != rowsMirroredConsumer) { rowsMirroredConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
+    public boolean getColsMirrored() { return colsMirrored; }
+    public boolean getRowsMirrored() { return rowsMirrored; }
+
+    public boolean getResizeMatrixWhenInnerRowOrColIsRemoved() { return resizeMatrixWhenInnerRowOrColIsRemoved; }
+    public void setResizeMatrixWhenInnerRowOrColIsRemoved(final boolean resize) { resizeMatrixWhenInnerRowOrColIsRemoved = resize; }
+
+
+    // ******************** Private methods ***********************************
+    /**
+     * Returns a 1-dimensional array that holds cols * rows values
+     * @param cols Number of columns for the matrix
+     * @param rows Number of rows for the matrix
+     * @return a 1-dimensional array that holds cols * rows values
+     */
+    private static long[] createArray(final int cols, final int rows) {
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        return new long[cols * rows];
+    }
+
+
+    // ******************** Event Handling ************************************
+    /**
+     * Sets the consumer that will be triggered if a value was changed in the matrix
+     * @param itemChangedConsumer A consumer of type MLongItemEvent
+     */
+    public void setOnItemChanged(final Consumer<MLongItemEvent> itemChangedConsumer) { this.itemChangedConsumer = itemChangedConsumer; }
+
+    /**
+     * Sets the consumer that will be triggered if a column was added to the matrix
+     * @param columnAddedConsumer A consumer of type MColumnEvent
+     */
+    public void setOnColumnAdded(final Consumer<MColumnEvent> columnAddedConsumer) { this.columnAddedConsumer = columnAddedConsumer; }
+
+    /**
+     * Sets the consumer that will be triggered if a column was removed from the matrix
+     * @param columnRemovedConsumer A consumer of type MColumnEvent
+     */
+    public void setOnColumnRemoved(final Consumer<MColumnEvent> columnRemovedConsumer) { this.columnRemovedConsumer = columnRemovedConsumer; }
+
+    /**
+     * Sets the consumer that will be triggered if a row was added to the matrix
+     * @param rowAddedConsumer A consumer of type MRowEvent
+     */
+    public void setOnRowAdded(final Consumer<MRowEvent> rowAddedConsumer) { this.rowAddedConsumer = rowAddedConsumer; }
+
+    /**
+     * Sets the consumer that will be triggered if a row was removed from the matrix
+     * @param rowRemovedConsumer A consumer of type MRowEvent
+     */
+    public void setOnRowRemoved(final Consumer<MRowEvent> rowRemovedConsumer) { this.rowRemovedConsumer = rowRemovedConsumer; }
+
+    /**
+     * Sets the consumer that will be triggered if the number of columns in the matrix changed
+     * @param columnsChangedConsumer A consumer of type MColumnsEvent
+     */
+    public void setOnNoOfColumnsChanged(final Consumer<MColumnsEvent> columnsChangedConsumer) { this.columnsChangedConsumer = columnsChangedConsumer; }
+
+    /**
+     * Sets the consumer that will be triggered if the number of rows in the matrix changed
+     * @param rowsChangedConsumer A consumer of type MRowsEvent
+     */
+    public void setOnNoOfRowsChanged(final Consumer<MRowsEvent> rowsChangedConsumer) { this.rowsChangedConsumer = rowsChangedConsumer; }
+
+    public void setOnColumnsMirrored(final Consumer<MColumnsEvent> columnsMirroredConsumer) { this.columnsMirroredConsumer = columnsMirroredConsumer; }
+
+    public void setOnRowsMirrored(final Consumer<MRowsEvent> rowsMirroredConsumer) { this.rowsMirroredConsumer = rowsMirroredConsumer; }
+
+    /**
+     * Add the given MatrixObserver<T> for the given TYPE to the map of observers
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     */
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer) { dispatcher.addObserver(type, observer); }
+
+    /**
+     * Add the given MObserver for the given TYPE to the map of observers.
+     * The observer will be called on the given executor (e.g. a thread pool
+     * or a virtual thread per task executor) so that a slow observer does
+     * not delay the thread that changes the matrix. Each observer gets the
+     * events in the order they were fired.
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     * @param executor The executor that runs the observer
+     */
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer, final Executor executor) { dispatcher.addObserver(type, observer, executor); }
+
+    /**
+     * Remove the given MObserver<T> for the given TYPE from the map of observers
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     */
+    public void removeOnMEvent(final MEventType<? extends MEvent> type, final MObserver<?> observer) { dispatcher.removeObserver(type, observer); }
+
+    /**
+     * Removes all observers
+     */
+    public void removeAllObservers() { dispatcher.removeAllObservers(); }
+
+    /**
+     * Waits until all observers that were added with an executor have handled
+     * the events that were fired before (e.g. in tests)
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return false if the timeout elapsed before all events were handled
+     * @throws InterruptedException
+     */
+    public boolean awaitEvents(final long timeout, final TimeUnit unit) throws InterruptedException { return dispatcher.awaitAsyncObservers(timeout, unit); }
+
+
+    void fireEvent(final MEvent event) { dispatcher.fireEvent(event); }
+
+
+    @Override public String toString() {
+        StringBuilder output = new StringBuilder();
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                output.append(matrix[y * cols + x]).append(" ");
+            }
+            output.append("\n");
+        }
+        return output.toString();
+    }
+}
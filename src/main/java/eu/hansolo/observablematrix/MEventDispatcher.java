@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MEvent;
+import eu.hansolo.observablematrix.event.MEventType;
+import eu.hansolo.observablematrix.event.MObserver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Keeps the MObservers of a matrix and dispatches MEvents to them.
+ * Shared by all matrix implementations in this package.
+ * An event is fired to the observers of its type and of all its super types
+ * (e.g. COLUMNS_MIRRORED, MColumnsEvent.ANY and MEvent.ANY). For each event
+ * type the observers of the whole type hierarchy are collected once into an
+ * array, which is cached until observers are added or removed, so firing an
+ * event is one lookup and a loop over an array.
+ * Event types are distinguished by identity.
+ * Observers that are added with an Executor are wrapped in an AsyncObserver
+ * and handle the events on the executor.
+ */
+final class MEventDispatcher {
+    private static final   MObserver<?>[]                         NO_OBSERVERS = new MObserver<?>[0];
+    private final          Map<MEventType<?>, List<MObserver<?>>> observers;
+    private       volatile Map<MEventType<?>, MObserver<?>[]>     dispatchTable;
+
+
+    // ******************** Constructors **************************************
+    MEventDispatcher() {
+        this.observers     = new HashMap<>();
+        this.dispatchTable = new ConcurrentHashMap<>();
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Add the given MatrixObserver<T> for the given TYPE to the map of observers
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     */
+    <E extends MEvent> void addObserver(final MEventType<E> type, final MObserver<? super E> observer) {
+        synchronized (observers) {
+            final List<MObserver<?>> typeObservers = observers.computeIfAbsent(type, key -> new ArrayList<>());
+            if (-1 != indexOf(typeObservers, observer)) { return; }
+            typeObservers.add(observer);
+            dispatchTable = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Add the given MObserver for the given TYPE to the map of observers,
+     * the observer will handle the events in order on the given executor
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     * @param executor The executor that runs the observer
+     */
+    <E extends MEvent> void addObserver(final MEventType<E> type, final MObserver<? super E> observer, final Executor executor) {
+        synchronized (observers) {
+            final List<MObserver<?>> typeObservers = observers.computeIfAbsent(type, key -> new ArrayList<>());
+            if (-1 != indexOf(typeObservers, observer)) { return; }
+            typeObservers.add(new AsyncObserver(asEventObserver(observer), executor));
+            dispatchTable = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Remove the given MObserver<T> for the given TYPE from the map of observers
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     */
+    void removeObserver(final MEventType<? extends MEvent> type, final MObserver<?> observer) {
+        synchronized (observers) {
+            final List<MObserver<?>> typeObservers = observers.get(type);
+            final int                index         = null == typeObservers ? -1 : indexOf(typeObservers, observer);
+            if (-1 == index) { return; }
+            typeObservers.remove(index);
+            if (typeObservers.isEmpty()) { observers.remove(type); }
+            dispatchTable = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Removes all observers
+     */
+    void removeAllObservers() {
+        synchronized (observers) {
+            observers.clear();
+            dispatchTable = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Returns true if at least one observer is registered for any event type
+     * @return true if at least one observer is registered
+     */
+    boolean hasObservers() {
+        synchronized (observers) { return !observers.isEmpty(); }
+    }
+
+    /**
+     * Returns true if an event of the given type would reach at least one observer
+     * @param type
+     * @return true if at least one observer is registered for the type or one of its super types
+     */
+    boolean hasObservers(final MEventType<? extends MEvent> type) { return 0 != observersOf(type).length; }
+
+    void fireEvent(final MEvent event) {
+        for (MObserver<?> observer : observersOf(event.getEventType())) { asEventObserver(observer).handle(event); }
+    }
+
+    /**
+     * Waits until all asynchronous observers have handled the events
+     * that were fired before this call
+     * @param timeout
+     * @param unit
+     * @return false if the timeout elapsed before
+     * @throws InterruptedException
+     */
+    boolean awaitAsyncObservers(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long                deadline       = System.nanoTime() + unit.toNanos(timeout);
+        final List<AsyncObserver> asyncObservers = new ArrayList<>();
+        synchronized (observers) {
+            observers.values().forEach(typeObservers -> typeObservers.forEach(observer -> {
+                if (observer instanceof AsyncObserver) { asyncObservers.add((AsyncObserver) observer); }
+            }));
+        }
+        for (AsyncObserver asyncObserver : asyncObservers) {
+            if (!asyncObserver.awaitIdle(deadline)) { return false; }
+        }
+        return true;
+    }
+
+
+    // ******************** Private methods ***********************************
+    /**
+     * Returns the index of the given observer or of the AsyncObserver that wraps it
+     * @param typeObservers
+     * @param observer
+     * @return the index of the given observer or -1
+     */
+    private static int indexOf(final List<MObserver<?>> typeObservers, final MObserver<?> observer) {
+        for (int i = 0 ; i < typeObservers.size() ; i++) {
+            final MObserver<?> typeObserver = typeObservers.get(i);
+            if (typeObserver.equals(observer) || (typeObserver instanceof AsyncObserver && ((AsyncObserver) typeObserver).wraps(observer))) { return i; }
+        }
+        return -1;
+    }
+
+    private MObserver<?>[] observersOf(final MEventType<?> type) {
+        final Map<MEventType<?>, MObserver<?>[]> dispatchTable = this.dispatchTable;
+        final MObserver<?>[]                     typeObservers = dispatchTable.get(type);
+        return null == typeObservers ? dispatchTable.computeIfAbsent(type, this::collectObservers) : typeObservers;
+    }
+
+    /**
+     * Returns the observers of the given type followed by the observers
+     * of its super types up to MEvent.ANY
+     * @param type
+     * @return the observers of the given type and of all its super types
+     */
+    private MObserver<?>[] collectObservers(final MEventType<?> type) {
+        synchronized (observers) {
+            final List<MObserver<?>> typeObservers = new ArrayList<>();
+            for (MEventType<?> t = type ; null != t ; t = t.getSuperType()) {
+                final List<MObserver<?>> observersOfType = observers.get(t);
+                if (null != observersOfType) { typeObservers.addAll(observersOfType); }
+            }
+            return typeObservers.isEmpty() ? NO_OBSERVERS : typeObservers.toArray(NO_OBSERVERS);
+        }
+    }
+
+    /**
+     * Returns the given observer as an observer of MEvents. An observer is only
+     * registered for an event type whose events it accepts and only gets events
+     * of that type or of its sub types, so it will never get an event it does
+     * not accept.
+     * @param observer
+     * @return the given observer
+     */
+    @SuppressWarnings("unchecked")
+    private static MObserver<MEvent> asEventObserver(final MObserver<?> observer) { return (MObserver<MEvent>) observer; }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MBatchEvent;
+
+import java.util.Arrays;
+
+
+/**
+ * Records the item changes of a batch update in growing arrays,
+ * so that recording a change does not allocate an event.
+ */
+final class MatrixBatch {
+    private static final int      INITIAL_CAPACITY = 16;
+    private              int      size;
+    private              int[]    xs;
+    private              int[]    ys;
+    private              Object[] oldItems;
+    private              Object[] items;
+
+
+    // ******************** Constructors **************************************
+    MatrixBatch() {
+        this.size     = 0;
+        this.xs       = new int[INITIAL_CAPACITY];
+        this.ys       = new int[INITIAL_CAPACITY];
+        this.oldItems = new Object[INITIAL_CAPACITY];
+        this.items    = new Object[INITIAL_CAPACITY];
+    }
+
+
+    // ******************** Methods *******************************************
+    void add(final int x, final int y, final Object oldItem, final Object item) {
+        if (size == xs.length) {
+            final int capacity = size + (size >> 1);
+            xs       = Arrays.copyOf(xs, capacity);
+            ys       = Arrays.copyOf(ys, capacity);
+            oldItems = Arrays.copyOf(oldItems, capacity);
+            items    = Arrays.copyOf(items, capacity);
+        }
+        xs[size]       = x;
+        ys[size]       = y;
+        oldItems[size] = oldItem;
+        items[size]    = item;
+        size++;
+    }
+
+    boolean isEmpty() { return 0 == size; }
+
+    /**
+     * Returns an MBatchEvent with the recorded changes, the batch must not be used afterwards
+     * @param source
+     * @return an MBatchEvent with the recorded changes
+     */
+    <T> MBatchEvent<T> toEvent(final Object source) {
+        return new MBatchEvent<>(source, MBatchEvent.BATCH_UPDATED, size, xs, ys, oldItems, items);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Collects the changed cells of a matrix as a small number of rectangles.
+ * Two rectangles are merged if their bounding rectangle does not contain
+ * more cells than both of them together (e.g. adjacent rows of the same
+ * width or overlapping rectangles).
+ * If there are more than maxRegions rectangles, the two rectangles whose
+ * bounding rectangle adds the fewest clean cells will be merged.
+ * A rectangle is an int[] { minX, minY, maxX, maxY }.
+ */
+final class MatrixDirtyRegions {
+    static final  int         DEFAULT_MAX_REGIONS = 16;
+    private final int         maxRegions;
+    private       List<int[]> regions;
+
+
+    // ******************** Constructors **************************************
+    MatrixDirtyRegions() {
+        this(DEFAULT_MAX_REGIONS);
+    }
+    MatrixDirtyRegions(final int maxRegions) {
+        if (maxRegions < 1) { throw new IllegalArgumentException("maxRegions cannot be smaller than 1"); }
+        this.maxRegions = maxRegions;
+        this.regions    = new ArrayList<>();
+    }
+
+
+    // ******************** Methods *******************************************
+    synchronized void add(final int x, final int y) {
+        for (int[] region : regions) {
+            if (x >= region[0] && x <= region[2] && y >= region[1] && y <= region[3]) { return; }
+        }
+        merge(new int[] { x, y, x, y });
+        while (regions.size() > maxRegions) { mergeCheapestPair(); }
+    }
+
+    synchronized boolean isEmpty() { return regions.isEmpty(); }
+
+    /**
+     * Returns the collected rectangles and starts a new collection
+     * @return the collected rectangles as int[] { minX, minY, maxX, maxY }
+     */
+    synchronized List<int[]> drain() {
+        final List<int[]> drained = regions;
+        regions = new ArrayList<>();
+        return drained;
+    }
+
+
+    // ******************** Private methods ***********************************
+    /**
+     * Adds the given rectangle and merges it with all rectangles
+     * that can be merged without adding clean cells
+     * @param region
+     */
+    private void merge(int[] region) {
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0 ; i < regions.size() ; i++) {
+                final int[] other = regions.get(i);
+                if (area(union(region, other)) <= area(region) + area(other)) {
+                    region = union(region, other);
+                    regions.remove(i);
+                    merged = true;
+                    break;
+                }
+            }
+        }
+        regions.add(region);
+    }
+
+    private void mergeCheapestPair() {
+        int  first    = 0;
+        int  second   = 1;
+        long minWaste = Long.MAX_VALUE;
+        for (int i = 0 ; i < regions.size() ; i++) {
+            for (int j = i + 1 ; j < regions.size() ; j++) {
+                final long waste = area(union(regions.get(i), regions.get(j))) - area(regions.get(i)) - area(regions.get(j));
+                if (waste < minWaste) {
+                    minWaste = waste;
+                    first    = i;
+                    second   = j;
+                }
+            }
+        }
+        final int[] region = union(regions.get(first), regions.get(second));
+        regions.remove(second);
+        regions.remove(first);
+        merge(region);
+    }
+
+    private static int[] union(final int[] a, final int[] b) {
+        return new int[] { Math.min(a[0], b[0]), Math.min(a[1], b[1]), Math.max(a[2], b[2]), Math.max(a[3], b[3]) };
+    }
+
+    private static long area(final int[] region) { return (long) (region[2] - region[0] + 1) * (region[3] - region[1] + 1); }
+}
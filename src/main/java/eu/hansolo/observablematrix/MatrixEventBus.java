@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MChangeListener;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A ring buffer that passes the changes of a matrix to listeners that run
+ * on their own consumer threads (in the style of the LMAX Disruptor).
+ * The bus is an MChangeListener, add it to a matrix with addChangeListener().
+ * Each change is written into a preallocated slot of the ring, so a writer
+ * only claims a sequence number, fills the slot and publishes it, it neither
+ * allocates nor calls the listeners (AllocationCheck verifies that). The
+ * AtomicObservableMatrix publishes while the stripe of the changed cell is
+ * locked, so the changes of a cell are published in the order they were
+ * applied. Each listener has its own thread and sequence, handles all
+ * published slots it has not seen yet in one batch and sees all changes
+ * in the order of their sequence numbers.
+ * If a listener is bufferSize changes behind, writers wait for it.
+ * @param <T>
+ */
+public final class MatrixEventBus<T> implements MChangeListener<T> {
+    private static final   int                ITEM_CHANGED       = 0;
+    private static final   int                COLUMN_ADDED       = 1;
+    private static final   int                COLUMN_REMOVED     = 2;
+    private static final   int                ROW_ADDED          = 3;
+    private static final   int                ROW_REMOVED        = 4;
+    private static final   int                NO_OF_COLS_CHANGED = 5;
+    private static final   int                NO_OF_ROWS_CHANGED = 6;
+    private static final   int                COLUMNS_MIRRORED   = 7;
+    private static final   int                ROWS_MIRRORED      = 8;
+    private static final   int                SPIN_TRIES         = 100;
+    private static final   int                YIELD_TRIES        = 100;
+    private static final   long               PARK_NANOS         = 50_000;
+    private final          Slot[]             slots;
+    private final          int                mask;
+    private final          int                indexShift;
+    private final          AtomicIntegerArray available;
+    private final          AtomicLong         cursor;
+    private final          ThreadFactory      threadFactory;
+    private       volatile Consumer<?>[]      consumers;
+    private       volatile long               gatingSequence;
+    private       volatile boolean            closed;
+
+
+    // ******************** Constructors **************************************
+    public MatrixEventBus(final int bufferSize) {
+        this(bufferSize, runnable -> {
+            Thread thread = new Thread(runnable, "MatrixEventBus-consumer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    public MatrixEventBus(final int bufferSize, final ThreadFactory threadFactory) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) { throw new IllegalArgumentException("bufferSize must be a power of 2"); }
+        if (null == threadFactory) { throw new IllegalArgumentException("threadFactory cannot be null"); }
+        this.slots          = new Slot[bufferSize];
+        this.mask           = bufferSize - 1;
+        this.indexShift     = Integer.numberOfTrailingZeros(bufferSize);
+        this.available      = new AtomicIntegerArray(bufferSize);
+        this.cursor         = new AtomicLong(-1);
+        this.threadFactory  = threadFactory;
+        this.consumers      = new Consumer<?>[0];
+        this.gatingSequence = -1;
+        this.closed         = false;
+        for (int i = 0 ; i < bufferSize ; i++) {
+            slots[i] = new Slot();
+            available.set(i, -1);
+        }
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Adds the given listener and starts a thread that passes all changes
+     * that are published from now on to it
+     * @param listener An MChangeListener<T>
+     */
+    public synchronized void addListener(final MChangeListener<T> listener) {
+        if (null == listener) { throw new IllegalArgumentException("listener cannot be null"); }
+        if (closed) { throw new IllegalStateException("the event bus is closed"); }
+        final Consumer<T>   consumer     = new Consumer<>(this, listener, cursor.get());
+        final Consumer<?>[] newConsumers = new Consumer<?>[consumers.length + 1];
+        System.arraycopy(consumers, 0, newConsumers, 0, consumers.length);
+        newConsumers[consumers.length] = consumer;
+        consumers = newConsumers;
+        consumer.thread = threadFactory.newThread(consumer);
+        consumer.thread.start();
+    }
+
+    /**
+     * Waits until all listeners have handled the changes that were published before
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return false if the timeout elapsed before
+     */
+    public boolean awaitListeners(final long timeout, final TimeUnit unit) {
+        final long deadline  = System.nanoTime() + unit.toNanos(timeout);
+        final long published = cursor.get();
+        for (Consumer<?> consumer : consumers) {
+            while (consumer.sequence.get() < published && !closed) {
+                if (System.nanoTime() - deadline >= 0) { return false; }
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the consumer threads, changes that are published afterwards
+     * will be ignored. Remove the bus from the matrix before closing it.
+     */
+    public synchronized void close() {
+        if (closed) { return; }
+        closed = true;
+        for (Consumer<?> consumer : consumers) { LockSupport.unpark(consumer.thread); }
+    }
+
+    public boolean isClosed() { return closed; }
+
+    public int getBufferSize() { return slots.length; }
+
+    @Override public void onItemChanged(final int x, final int y, final T oldItem, final T item) { publish(ITEM_CHANGED, x, y, oldItem, item); }
+
+    @Override public void onColumnAdded(final int column) { publish(COLUMN_ADDED, column, 0, null, null); }
+
+    @Override public void onColumnRemoved(final int column) { publish(COLUMN_REMOVED, column, 0, null, null); }
+
+    @Override public void onRowAdded(final int row) { publish(ROW_ADDED, row, 0, null, null); }
+
+    @Override public void onRowRemoved(final int row) { publish(ROW_REMOVED, row, 0, null, null); }
+
+    @Override public void onNoOfColumnsChanged(final int noOfColumns) { publish(NO_OF_COLS_CHANGED, noOfColumns, 0, null, null); }
+
+    @Override public void onNoOfRowsChanged(final int noOfRows) { publish(NO_OF_ROWS_CHANGED, noOfRows, 0, null, null); }
+
+    @Override public void onColumnsMirrored(final int noOfColumns) { publish(COLUMNS_MIRRORED, noOfColumns, 0, null, null); }
+
+    @Override public void onRowsMirrored(final int noOfRows) { publish(ROWS_MIRRORED, noOfRows, 0, null, null); }
+
+
+    // ******************** Private methods ***********************************
+    /**
+     * Claims the next sequence, waits until all listeners are less than
+     * bufferSize slots behind, fills the slot and marks it as available
+     */
+    private void publish(final int kind, final int x, final int y, final Object oldItem, final Object item) {
+        if (closed) { return; }
+        final long sequence  = cursor.incrementAndGet();
+        final long wrapPoint = sequence - slots.length;
+        if (wrapPoint > gatingSequence) {
+            int  tries = 0;
+            long minSequence;
+            while (wrapPoint > (minSequence = minConsumerSequence(sequence))) {
+                if (closed) { return; }
+                tries = backOff(tries);
+            }
+            gatingSequence = minSequence;
+        }
+        final Slot slot = slots[(int) sequence & mask];
+        slot.kind    = kind;
+        slot.x       = x;
+        slot.y       = y;
+        slot.oldItem = oldItem;
+        slot.item    = item;
+        available.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+    }
+
+    private long minConsumerSequence(final long defaultSequence) {
+        long minSequence = defaultSequence;
+        for (Consumer<?> consumer : consumers) { minSequence = Math.min(minSequence, consumer.sequence.get()); }
+        return minSequence;
+    }
+
+    private boolean isAvailable(final long sequence) {
+        return available.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    /**
+     * Spins, then yields and then parks the current thread for a short time
+     * @param tries number of tries so far
+     * @return number of tries including this one
+     */
+    private static int backOff(final int tries) {
+        if (tries >= SPIN_TRIES + YIELD_TRIES) {
+            LockSupport.parkNanos(PARK_NANOS);
+        } else if (tries >= SPIN_TRIES) {
+            Thread.yield();
+        }
+        return tries + 1;
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Slot {
+        private int    kind;
+        private int    x;
+        private int    y;
+        private Object oldItem;
+        private Object item;
+    }
+
+
+    /**
+     * Runs a listener on its own thread
+     */
+    private static final class Consumer<T> implements Runnable {
+        private final          MatrixEventBus<T>  bus;
+        private final          MChangeListener<T> listener;
+        private final          AtomicLong         sequence;
+        private       volatile Thread             thread;
+
+
+        Consumer(final MatrixEventBus<T> bus, final MChangeListener<T> listener, final long sequence) {
+            this.bus      = bus;
+            this.listener = listener;
+            this.sequence = new AtomicLong(sequence);
+        }
+
+
+        @Override public void run() {
+            long next  = sequence.get() + 1;
+            int  tries = 0;
+            while (!bus.closed) {
+                if (!bus.isAvailable(next)) {
+                    tries = backOff(tries);
+                    continue;
+                }
+                tries = 0;
+                // Handle all slots that are available in one batch
+                while (bus.isAvailable(next)) {
+                    handle(bus.slots[(int) next & bus.mask]);
+                    next++;
+                }
+                sequence.lazySet(next - 1);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void handle(final Slot slot) {
+            try {
+                switch (slot.kind) {
+                    case ITEM_CHANGED      : listener.onItemChanged(slot.x, slot.y, (T) slot.oldItem, (T) slot.item); break;
+                    case COLUMN_ADDED      : listener.onColumnAdded(slot.x); break;
+                    case COLUMN_REMOVED    : listener.onColumnRemoved(slot.x); break;
+                    case ROW_ADDED         : listener.onRowAdded(slot.x); break;
+                    case ROW_REMOVED       : listener.onRowRemoved(slot.x); break;
+                    case NO_OF_COLS_CHANGED: listener.onNoOfColumnsChanged(slot.x); break;
+                    case NO_OF_ROWS_CHANGED: listener.onNoOfRowsChanged(slot.x); break;
+                    case COLUMNS_MIRRORED  : listener.onColumnsMirrored(slot.x); break;
+                    case ROWS_MIRRORED     : listener.onRowsMirrored(slot.x); break;
+                }
+            } catch (RuntimeException e) {
+                final Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+    }
+}
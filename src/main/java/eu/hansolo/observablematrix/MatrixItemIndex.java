@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+
+
+/**
+ * Maps each non null item of a MatrixStorage to the positions where it is stored.
+ * A position is a long where the upper 32 bits contain the column and the lower
+ * 32 bits contain the row (like in MatrixStorage.indexOf()).
+ * All positions are storage positions, the matrix has to update the index on
+ * every write and structural change of its storage.
+ * Writes are O(1), structural changes are O(number of items) because the
+ * positions behind the inserted or removed column or row have to be moved.
+ */
+final class MatrixItemIndex {
+    private Map<Object, Set<Long>> positions;
+
+
+    // ******************** Constructors **************************************
+    MatrixItemIndex(final MatrixStorage<?> storage) {
+        this.positions = new HashMap<>();
+        storage.forEachItem((col, row, item) -> add(item, col, row));
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the positions of the given item, an empty set if it is not stored
+     * @param item
+     * @return the positions of the given item
+     */
+    Set<Long> getPositions(final Object item) {
+        Set<Long> itemPositions = null == item ? null : positions.get(item);
+        return null == itemPositions ? Collections.emptySet() : itemPositions;
+    }
+
+    boolean contains(final Object item) { return null != item && positions.containsKey(item); }
+
+    /**
+     * Has to be called after the cell at the given position was written
+     * @param col
+     * @param row
+     * @param oldItem the item that was stored in the cell before
+     * @param item    the item that is stored in the cell now
+     */
+    void update(final int col, final int row, final Object oldItem, final Object item) {
+        if (null != oldItem) { remove(oldItem, col, row); }
+        if (null != item)    { add(item, col, row); }
+    }
+
+    void insertCol(final int at) { move(position -> col(position) < at ? position : position + (1L << 32)); }
+
+    void removeCol(final int at) {
+        move(position -> {
+            final int col = col(position);
+            return col < at ? position : col == at ? -1 : position - (1L << 32);
+        });
+    }
+
+    void insertRow(final int at) { move(position -> row(position) < at ? position : position + 1); }
+
+    void removeRow(final int at) {
+        move(position -> {
+            final int row = row(position);
+            return row < at ? position : row == at ? -1 : position - 1;
+        });
+    }
+
+    /**
+     * Removes all positions outside of the given size
+     * @param cols new number of columns
+     * @param rows new number of rows
+     */
+    void resize(final int cols, final int rows) { move(position -> col(position) < cols && row(position) < rows ? position : -1); }
+
+    void mirrorCols(final int cols) { move(position -> key(cols - col(position) - 1, row(position))); }
+
+    void mirrorRows(final int rows) { move(position -> key(col(position), rows - row(position) - 1)); }
+
+    void clear() { positions.clear(); }
+
+    static long key(final int col, final int row) { return ((long) col << 32) | row; }
+
+    static int col(final long position) { return (int) (position >>> 32); }
+
+    static int row(final long position) { return (int) position; }
+
+
+    // ******************** Private methods ***********************************
+    private void add(final Object item, final int col, final int row) {
+        positions.computeIfAbsent(item, key -> new HashSet<>(2)).add(key(col, row));
+    }
+
+    private void remove(final Object item, final int col, final int row) {
+        final Set<Long> itemPositions = positions.get(item);
+        if (null == itemPositions) { return; }
+        itemPositions.remove(key(col, row));
+        if (itemPositions.isEmpty()) { positions.remove(item); }
+    }
+
+    /**
+     * Replaces each position by the result of the given mapper,
+     * positions mapped to -1 will be removed
+     * @param mapper
+     */
+    private void move(final LongUnaryOperator mapper) {
+        Map<Object, Set<Long>> newPositions = new HashMap<>(positions.size() * 4 / 3 + 1);
+        positions.forEach((item, itemPositions) -> {
+            Set<Long> newItemPositions = new HashSet<>(itemPositions.size() * 4 / 3 + 1);
+            for (long position : itemPositions) {
+                final long newPosition = mapper.applyAsLong(position);
+                if (-1 != newPosition) { newItemPositions.add(newPosition); }
+            }
+            if (!newItemPositions.isEmpty()) { newPositions.put(item, newItemPositions); }
+        });
+        positions = newPositions;
+    }
+}
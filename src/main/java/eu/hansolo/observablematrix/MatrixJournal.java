@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MChangeListener;
+
+import java.util.List;
+
+
+/**
+ * Records the changes of an ObservableMatrix with increasing sequence numbers
+ * in a ring of the given capacity, so that a consumer that missed some changes
+ * (e.g. after a reconnect) can catch up with the changes since the last
+ * sequence it has seen instead of copying the whole matrix.
+ * The records are kept in parallel arrays, the ring keeps the latest
+ * capacity changes, older ones are overwritten.
+ * Items of added columns and rows are recorded as item changes after the
+ * structural change. Changes that are not notified (notify = false) and
+ * reset() can not be recorded, they invalidate the journal instead, so that
+ * changesSince() returns -1 and replayInto() copies the matrix.
+ * The matrix records each change while the written cell or, for structural
+ * changes, the whole matrix is still locked, so that the sequence numbers
+ * follow the order in which concurrent writers applied their changes.
+ * Create a journal with ObservableMatrix.journal().
+ * @param <T>
+ */
+public final class MatrixJournal<T> implements MChangeListener<T> {
+    private static final   int                 ITEM_CHANGED       = 0;
+    private static final   int                 COLUMN_ADDED       = 1;
+    private static final   int                 COLUMN_REMOVED     = 2;
+    private static final   int                 COLUMN_CLEARED     = 3;
+    private static final   int                 ROW_ADDED          = 4;
+    private static final   int                 ROW_REMOVED        = 5;
+    private static final   int                 ROW_CLEARED        = 6;
+    private static final   int                 NO_OF_COLS_CHANGED = 7;
+    private static final   int                 NO_OF_ROWS_CHANGED = 8;
+    private static final   int                 COLUMNS_MIRRORED   = 9;
+    private static final   int                 ROWS_MIRRORED      = 10;
+    private final          ObservableMatrix<T> matrix;
+    private final          int                 capacity;
+    private final          int[]               kinds;
+    private final          int[]               xs;
+    private final          int[]               ys;
+    private final          Object[]            oldItems;
+    private final          Object[]            items;
+    private                long                sequence;
+    private                long                invalidatedSequence;
+    private                int                 cols;
+    private                int                 rows;
+
+
+    // ******************** Constructors **************************************
+    MatrixJournal(final ObservableMatrix<T> matrix, final int capacity) {
+        if (capacity < 1) { throw new IllegalArgumentException("capacity cannot be smaller than 1"); }
+        this.matrix              = matrix;
+        this.capacity            = capacity;
+        this.kinds               = new int[capacity];
+        this.xs                  = new int[capacity];
+        this.ys                  = new int[capacity];
+        this.oldItems            = new Object[capacity];
+        this.items               = new Object[capacity];
+        this.sequence            = 0;
+        this.invalidatedSequence = 0;
+        this.cols                = matrix.getNoOfCols();
+        this.rows                = matrix.getNoOfRows();
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the sequence number of the latest recorded change, 0 if nothing was recorded
+     * @return the sequence number of the latest recorded change
+     */
+    public synchronized long getSequence() { return sequence; }
+
+    /**
+     * Returns the sequence number of the oldest change that is still in the journal
+     * @return the sequence number of the oldest change that is still in the journal
+     */
+    public synchronized long getOldestSequence() { return Math.max(invalidatedSequence + 1, Math.max(1, sequence - capacity + 1)); }
+
+    public int getCapacity() { return capacity; }
+
+    /**
+     * Returns true if all changes after the given sequence number are still in the journal
+     * @param sequence
+     * @return true if all changes after the given sequence number are still in the journal
+     */
+    public synchronized boolean isAvailable(final long sequence) { return sequence >= Math.max(invalidatedSequence, this.sequence - capacity) && sequence <= this.sequence; }
+
+    /**
+     * Passes all changes after the given sequence number to the given
+     * listener in the order in which they were recorded
+     * @param sequence the sequence number of the last change the caller has seen
+     * @param listener An MChangeListener<T>
+     * @return the sequence number of the last change that was passed or -1 if the changes are no longer available
+     */
+    @SuppressWarnings("unchecked")
+    public long changesSince(final long sequence, final MChangeListener<T> listener) {
+        if (null == listener) { throw new IllegalArgumentException("listener cannot be null"); }
+        final Changes changes = copyChangesSince(sequence);
+        if (null == changes) { return -1; }
+        for (int i = 0 ; i < changes.size ; i++) {
+            final int x = changes.xs[i];
+            switch (changes.kinds[i]) {
+                case ITEM_CHANGED      : listener.onItemChanged(x, changes.ys[i], (T) changes.oldItems[i], (T) changes.items[i]); break;
+                case COLUMN_ADDED      : listener.onColumnAdded(x); break;
+                case COLUMN_REMOVED    :
+                case COLUMN_CLEARED    : listener.onColumnRemoved(x); break;
+                case ROW_ADDED         : listener.onRowAdded(x); break;
+                case ROW_REMOVED       :
+                case ROW_CLEARED       : listener.onRowRemoved(x); break;
+                case NO_OF_COLS_CHANGED: listener.onNoOfColumnsChanged(x); break;
+                case NO_OF_ROWS_CHANGED: listener.onNoOfRowsChanged(x); break;
+                case COLUMNS_MIRRORED  : listener.onColumnsMirrored(x); break;
+                case ROWS_MIRRORED     : listener.onRowsMirrored(x); break;
+            }
+        }
+        return changes.lastSequence;
+    }
+
+    /**
+     * Applies all changes after the given sequence number to the given matrix.
+     * If the changes are no longer available (or the sequence is -1) the size
+     * and the items of the observed matrix will be copied instead.
+     * Copied items that were changed while copying will be applied again with
+     * the next call, structural changes that run while copying might be applied twice.
+     * @param target   the matrix that should follow the observed matrix
+     * @param sequence the sequence number of the last change that was applied to the target
+     * @return the sequence number of the last change that was applied to the target
+     */
+    @SuppressWarnings("unchecked")
+    public long replayInto(final ObservableMatrix<T> target, final long sequence) {
+        if (null == target) { throw new IllegalArgumentException("target cannot be null"); }
+        if (target == matrix) { throw new IllegalArgumentException("target cannot be the observed matrix"); }
+        final Changes changes = copyChangesSince(sequence);
+        if (null == changes) { return copyInto(target); }
+        for (int i = 0 ; i < changes.size ; i++) {
+            final int x = changes.xs[i];
+            switch (changes.kinds[i]) {
+                case ITEM_CHANGED      : target.setItemAt(x, changes.ys[i], (T) changes.items[i]); break;
+                case COLUMN_ADDED      : target.addNullCol(x); break;
+                case COLUMN_REMOVED    : removeCol(target, x); break;
+                case COLUMN_CLEARED    : for (int y = 0 ; y < target.getNoOfRows() ; y++) { target.setItemAt(x, y, null); } break;
+                case ROW_ADDED         : target.addNullRow(x); break;
+                case ROW_REMOVED       : removeRow(target, x); break;
+                case ROW_CLEARED       : for (int col = 0 ; col < target.getNoOfCols() ; col++) { target.setItemAt(col, x, null); } break;
+                case NO_OF_COLS_CHANGED: target.setCols(x); break;
+                case NO_OF_ROWS_CHANGED: target.setRows(x); break;
+                case COLUMNS_MIRRORED  : target.mirrorColumns(); break;
+                case ROWS_MIRRORED     : target.mirrorRows(); break;
+            }
+        }
+        return changes.lastSequence;
+    }
+
+    /**
+     * Stops recording the changes of the matrix
+     */
+    public void close() { matrix.removeJournal(MatrixJournal.this); }
+
+    @Override public void onItemChanged(final int x, final int y, final T oldItem, final T item) {
+        synchronized (this) { record(ITEM_CHANGED, x, y, oldItem, item); }
+    }
+
+    @Override public void onColumnAdded(final int column) {
+        final List<T> columnItems = matrix.getCol(column);
+        synchronized (this) {
+            cols = matrix.getNoOfCols();
+            record(COLUMN_ADDED, column, 0, null, null);
+            for (int y = 0 ; y < columnItems.size() ; y++) {
+                if (null != columnItems.get(y)) { record(ITEM_CHANGED, column, y, null, columnItems.get(y)); }
+            }
+        }
+    }
+
+    @Override public void onColumnRemoved(final int column) {
+        synchronized (this) {
+            // An inner column is only cleared if the matrix is not resized
+            final int noOfCols = matrix.getNoOfCols();
+            record(noOfCols < cols ? COLUMN_REMOVED : COLUMN_CLEARED, column, 0, null, null);
+            cols = noOfCols;
+        }
+    }
+
+    @Override public void onRowAdded(final int row) {
+        final List<T> rowItems = matrix.getRow(row);
+        synchronized (this) {
+            rows = matrix.getNoOfRows();
+            record(ROW_ADDED, row, 0, null, null);
+            for (int x = 0 ; x < rowItems.size() ; x++) {
+                if (null != rowItems.get(x)) { record(ITEM_CHANGED, x, row, null, rowItems.get(x)); }
+            }
+        }
+    }
+
+    @Override public void onRowRemoved(final int row) {
+        synchronized (this) {
+            final int noOfRows = matrix.getNoOfRows();
+            record(noOfRows < rows ? ROW_REMOVED : ROW_CLEARED, row, 0, null, null);
+            rows = noOfRows;
+        }
+    }
+
+    @Override public void onNoOfColumnsChanged(final int noOfColumns) {
+        synchronized (this) {
+            cols = noOfColumns;
+            record(NO_OF_COLS_CHANGED, noOfColumns, 0, null, null);
+        }
+    }
+
+    @Override public void onNoOfRowsChanged(final int noOfRows) {
+        synchronized (this) {
+            rows = noOfRows;
+            record(NO_OF_ROWS_CHANGED, noOfRows, 0, null, null);
+        }
+    }
+
+    @Override public void onColumnsMirrored(final int noOfColumns) {
+        synchronized (this) { record(COLUMNS_MIRRORED, noOfColumns, 0, null, null); }
+    }
+
+    @Override public void onRowsMirrored(final int noOfRows) {
+        synchronized (this) { record(ROWS_MIRRORED, noOfRows, 0, null, null); }
+    }
+
+
+    /**
+     * Called by the matrix after a change that was not passed to the listeners.
+     * The sequence number advances without a record, so the changes up to
+     * here are no longer available and a consumer has to copy the matrix.
+     */
+    synchronized void invalidate() {
+        sequence++;
+        invalidatedSequence = sequence;
+    }
+
+
+    // ******************** Private methods ***********************************
+    private void record(final int kind, final int x, final int y, final Object oldItem, final Object item) {
+        sequence++;
+        final int index = (int) (sequence % capacity);
+        kinds[index]    = kind;
+        xs[index]       = x;
+        ys[index]       = y;
+        oldItems[index] = oldItem;
+        items[index]    = item;
+    }
+
+    /**
+     * Copies the changes after the given sequence number, so that they
+     * can be passed on without holding the lock of the journal
+     * @param sequence
+     * @return the changes after the given sequence number or null if they are no longer available
+     */
+    private synchronized Changes copyChangesSince(final long sequence) {
+        if (!isAvailable(sequence)) { return null; }
+        final Changes changes = new Changes((int) (this.sequence - sequence), this.sequence);
+        for (int i = 0 ; i < changes.size ; i++) {
+            final int index = (int) ((sequence + 1 + i) % capacity);
+            changes.kinds[i]    = kinds[index];
+            changes.xs[i]       = xs[index];
+            changes.ys[i]       = ys[index];
+            changes.oldItems[i] = oldItems[index];
+            changes.items[i]    = items[index];
+        }
+        return changes;
+    }
+
+    /**
+     * Copies the size and the items of the observed matrix into the given matrix
+     * @param target
+     * @return the sequence number the copy is based on
+     */
+    private long copyInto(final ObservableMatrix<T> target) {
+        final long    snapshotSequence;
+        final T[][]   snapshot;
+        synchronized (this) {
+            snapshotSequence = this.sequence;
+            snapshot         = matrix.getMatrix();
+            // With StorageMode.COLUMN_ARRAYS getMatrix() returns the backing array
+            for (int x = 0 ; x < snapshot.length ; x++) { snapshot[x] = snapshot[x].clone(); }
+        }
+        target.setSize(snapshot.length, snapshot[0].length);
+        for (int x = 0 ; x < snapshot.length ; x++) {
+            for (int y = 0 ; y < snapshot[x].length ; y++) {
+                if (snapshot[x][y] != target.getItemAt(x, y)) { target.setItemAt(x, y, snapshot[x][y]); }
+            }
+        }
+        return snapshotSequence;
+    }
+
+    /**
+     * Removes the given column from the target, also if it is an inner
+     * column and the target does not resize if inner columns are removed
+     */
+    private static <T> void removeCol(final ObservableMatrix<T> target, final int at) {
+        final boolean resize = target.getResizeMatrixWhenInnerRowOrColIsRemoved();
+        target.setResizeMatrixWhenInnerRowOrColIsRemoved(true);
+        try {
+            target.removeCol(at);
+        } finally {
+            target.setResizeMatrixWhenInnerRowOrColIsRemoved(resize);
+        }
+    }
+
+    private static <T> void removeRow(final ObservableMatrix<T> target, final int at) {
+        final boolean resize = target.getResizeMatrixWhenInnerRowOrColIsRemoved();
+        target.setResizeMatrixWhenInnerRowOrColIsRemoved(true);
+        try {
+            target.removeRow(at);
+        } finally {
+            target.setResizeMatrixWhenInnerRowOrColIsRemoved(resize);
+        }
+    }
+
+
+    // ******************** Inner Classes *************************************
+    private static final class Changes {
+        private final int      size;
+        private final long     lastSequence;
+        private final int[]    kinds;
+        private final int[]    xs;
+        private final int[]    ys;
+        private final Object[] oldItems;
+        private final Object[] items;
+
+
+        Changes(final int size, final long lastSequence) {
+            this.size         = size;
+            this.lastSequence = lastSequence;
+            this.kinds        = new int[size];
+            this.xs           = new int[size];
+            this.ys           = new int[size];
+            this.oldItems     = new Object[size];
+            this.items        = new Object[size];
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * Keeps the number of non null items per column and per row of a
+ * MatrixStorage together with a bitset of the non empty columns and rows.
+ * All positions are storage positions, the matrix has to update the
+ * occupancy on every write and structural change of its storage.
+ */
+final class MatrixOccupancy {
+    private int[]  colCounts;
+    private int[]  rowCounts;
+    private BitSet nonEmptyCols;
+    private BitSet nonEmptyRows;
+    private int    cols;
+    private int    rows;
+
+
+    // ******************** Constructors **************************************
+    MatrixOccupancy(final int cols, final int rows) {
+        this.colCounts    = new int[cols];
+        this.rowCounts    = new int[rows];
+        this.nonEmptyCols = new BitSet(cols);
+        this.nonEmptyRows = new BitSet(rows);
+        this.cols         = cols;
+        this.rows         = rows;
+    }
+
+
+    // ******************** Methods *******************************************
+    int getColCount(final int col) { return colCounts[col]; }
+
+    int getRowCount(final int row) { return rowCounts[row]; }
+
+    boolean isColEmpty(final int col) { return 0 == colCounts[col]; }
+
+    boolean isRowEmpty(final int row) { return 0 == rowCounts[row]; }
+
+    /**
+     * Returns the index of the first empty column at or after the given index
+     * or the number of columns if there is none
+     * @param from
+     * @return the index of the first empty column at or after the given index
+     */
+    int nextEmptyCol(final int from) { return Math.min(nonEmptyCols.nextClearBit(from), cols); }
+
+    /**
+     * Returns the index of the first empty row at or after the given index
+     * or the number of rows if there is none
+     * @param from
+     * @return the index of the first empty row at or after the given index
+     */
+    int nextEmptyRow(final int from) { return Math.min(nonEmptyRows.nextClearBit(from), rows); }
+
+    /**
+     * Has to be called after the cell at the given position was written
+     * @param col
+     * @param row
+     * @param hadItem true if the cell contained a non null item before
+     * @param hasItem true if the cell contains a non null item now
+     */
+    void update(final int col, final int row, final boolean hadItem, final boolean hasItem) {
+        if (hadItem == hasItem) { return; }
+        if (hasItem) {
+            if (1 == ++colCounts[col]) { nonEmptyCols.set(col); }
+            if (1 == ++rowCounts[row]) { nonEmptyRows.set(row); }
+        } else {
+            if (0 == --colCounts[col]) { nonEmptyCols.clear(col); }
+            if (0 == --rowCounts[row]) { nonEmptyRows.clear(row); }
+        }
+    }
+
+    void insertCol(final int at) {
+        if (cols == colCounts.length) { colCounts = Arrays.copyOf(colCounts, ArrayMatrixStorage.grow(cols, cols + 1)); }
+        System.arraycopy(colCounts, at, colCounts, at + 1, cols - at);
+        colCounts[at] = 0;
+        cols++;
+        updateBits(nonEmptyCols, colCounts, at, cols);
+    }
+
+    /**
+     * Has to be called before the column is removed from the storage
+     * because the rows of its items will be looked up in the storage
+     * @param at
+     * @param storage
+     */
+    void removeCol(final int at, final MatrixStorage<?> storage) {
+        if (colCounts[at] > 0) {
+            for (int row = 0 ; row < rows ; row++) {
+                if (null != storage.get(at, row) && 0 == --rowCounts[row]) { nonEmptyRows.clear(row); }
+            }
+        }
+        System.arraycopy(colCounts, at + 1, colCounts, at, cols - at - 1);
+        cols--;
+        colCounts[cols] = 0;
+        updateBits(nonEmptyCols, colCounts, at, cols + 1);
+    }
+
+    void insertRow(final int at) {
+        if (rows == rowCounts.length) { rowCounts = Arrays.copyOf(rowCounts, ArrayMatrixStorage.grow(rows, rows + 1)); }
+        System.arraycopy(rowCounts, at, rowCounts, at + 1, rows - at);
+        rowCounts[at] = 0;
+        rows++;
+        updateBits(nonEmptyRows, rowCounts, at, rows);
+    }
+
+    /**
+     * Has to be called before the row is removed from the storage
+     * because the columns of its items will be looked up in the storage
+     * @param at
+     * @param storage
+     */
+    void removeRow(final int at, final MatrixStorage<?> storage) {
+        if (rowCounts[at] > 0) {
+            for (int col = 0 ; col < cols ; col++) {
+                if (null != storage.get(col, at) && 0 == --colCounts[col]) { nonEmptyCols.clear(col); }
+            }
+        }
+        System.arraycopy(rowCounts, at + 1, rowCounts, at, rows - at - 1);
+        rows--;
+        rowCounts[rows] = 0;
+        updateBits(nonEmptyRows, rowCounts, at, rows + 1);
+    }
+
+    /**
+     * Has to be called before the storage is resized because the items
+     * in columns and rows that will be removed are looked up in the storage
+     * @param cols new number of columns
+     * @param rows new number of rows
+     * @param storage
+     */
+    void resize(final int cols, final int rows, final MatrixStorage<?> storage) {
+        for (int col = cols ; col < this.cols ; col++) {
+            if (0 == colCounts[col]) { continue; }
+            for (int row = 0 ; row < this.rows ; row++) {
+                if (null != storage.get(col, row) && 0 == --rowCounts[row]) { nonEmptyRows.clear(row); }
+            }
+        }
+        for (int row = rows ; row < this.rows ; row++) {
+            if (0 == rowCounts[row]) { continue; }
+            for (int col = 0 ; col < Math.min(cols, this.cols) ; col++) {
+                if (null != storage.get(col, row) && 0 == --colCounts[col]) { nonEmptyCols.clear(col); }
+            }
+        }
+        colCounts = resize(colCounts, this.cols, cols);
+        rowCounts = resize(rowCounts, this.rows, rows);
+        if (cols < this.cols) { nonEmptyCols.clear(cols, this.cols); }
+        if (rows < this.rows) { nonEmptyRows.clear(rows, this.rows); }
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    void clear() {
+        Arrays.fill(colCounts, 0);
+        Arrays.fill(rowCounts, 0);
+        nonEmptyCols.clear();
+        nonEmptyRows.clear();
+    }
+
+    void mirrorCols() {
+        reverse(colCounts, cols);
+        updateBits(nonEmptyCols, colCounts, 0, cols);
+    }
+
+    void mirrorRows() {
+        reverse(rowCounts, rows);
+        updateBits(nonEmptyRows, rowCounts, 0, rows);
+    }
+
+
+    // ******************** Private methods ***********************************
+    private static int[] resize(final int[] counts, final int length, final int newLength) {
+        if (newLength < length) {
+            Arrays.fill(counts, newLength, length, 0);
+            return counts;
+        }
+        return newLength > counts.length ? Arrays.copyOf(counts, ArrayMatrixStorage.grow(counts.length, newLength)) : counts;
+    }
+
+    private static void updateBits(final BitSet bits, final int[] counts, final int from, final int to) {
+        for (int i = from ; i < to ; i++) { bits.set(i, counts[i] > 0); }
+    }
+
+    private static void reverse(final int[] counts, final int length) {
+        for (int i = 0 ; i < length / 2 ; i++) {
+            int temp = counts[i];
+            counts[i] = counts[length - i - 1];
+            counts[length - i - 1] = temp;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MEvent;
+import eu.hansolo.observablematrix.event.MFlow;
+import eu.hansolo.observablematrix.event.MItemEvent;
+import eu.hansolo.observablematrix.event.MObserver;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static eu.hansolo.observablematrix.event.MItemEvent.ITEM_ADDED;
+import static eu.hansolo.observablematrix.event.MItemEvent.ITEM_CHANGED;
+import static eu.hansolo.observablematrix.event.MItemEvent.ITEM_REMOVED;
+
+
+/**
+ * Publishes all MEvents of a matrix to subscribers with backpressure.
+ * Each subscription observes the matrix with its own buffer of at most
+ * bufferSize events. Events are passed to the subscriber on the executor,
+ * one at a time, in order and only as many as the subscriber requested.
+ * If the buffer is full the OverflowPolicy decides what happens.
+ */
+final class MatrixPublisher implements MFlow.Publisher<MEvent> {
+    private final MEventDispatcher dispatcher;
+    private final int              bufferSize;
+    private final OverflowPolicy   overflowPolicy;
+    private final Executor         executor;
+
+
+    // ******************** Constructors **************************************
+    MatrixPublisher(final MEventDispatcher dispatcher, final int bufferSize, final OverflowPolicy overflowPolicy, final Executor executor) {
+        if (bufferSize < 1) { throw new IllegalArgumentException("bufferSize cannot be smaller than 1"); }
+        if (null == overflowPolicy) { throw new IllegalArgumentException("overflowPolicy cannot be null"); }
+        if (null == executor) { throw new IllegalArgumentException("executor cannot be null"); }
+        this.dispatcher     = dispatcher;
+        this.bufferSize     = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.executor       = executor;
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override public void subscribe(final MFlow.Subscriber<? super MEvent> subscriber) {
+        if (null == subscriber) { throw new NullPointerException("subscriber cannot be null"); }
+        final MatrixSubscription subscription = new MatrixSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+
+    // ******************** Inner Classes *************************************
+    /**
+     * An entry of the buffer, conflated item events replace the event of their slot
+     */
+    private static final class Slot {
+        private final long   cell;
+        private       MEvent event;
+
+        Slot(final long cell, final MEvent event) {
+            this.cell  = cell;
+            this.event = event;
+        }
+    }
+
+
+    private final class MatrixSubscription implements MFlow.Subscription, MObserver<MEvent> {
+        private final MFlow.Subscriber<? super MEvent> subscriber;
+        private final ArrayDeque<Slot>                 buffer;
+        private final Map<Long, Slot>                  cellSlots;
+        private final AtomicBoolean                    scheduled;
+        private       long                             demand;
+        private       boolean                          cancelled;
+
+
+        MatrixSubscription(final MFlow.Subscriber<? super MEvent> subscriber) {
+            this.subscriber = subscriber;
+            this.buffer     = new ArrayDeque<>(Math.min(bufferSize, 1024));
+            this.cellSlots  = new HashMap<>();
+            this.scheduled  = new AtomicBoolean(false);
+            this.demand     = 0;
+            this.cancelled  = false;
+        }
+
+
+        void start() {
+            synchronized (this) { if (cancelled) { return; } }
+            dispatcher.addObserver(MEvent.ANY, this);
+        }
+
+        @Override public void handle(final MEvent event) {
+            synchronized (this) {
+                if (cancelled) { return; }
+                if (OverflowPolicy.CONFLATE == overflowPolicy && conflate(event)) { return; }
+                while (buffer.size() >= bufferSize) {
+                    if (OverflowPolicy.DROP_OLDEST == overflowPolicy) {
+                        removeCellSlot(buffer.pollFirst());
+                    } else {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        if (cancelled) { return; }
+                    }
+                }
+                final Slot slot;
+                if (event instanceof MItemEvent) {
+                    final MItemEvent<?> itemEvent = (MItemEvent<?>) event;
+                    slot = new Slot(MatrixItemIndex.key(itemEvent.getX(), itemEvent.getY()), event);
+                    if (OverflowPolicy.CONFLATE == overflowPolicy) { cellSlots.put(slot.cell, slot); }
+                } else {
+                    // Positions of buffered item events are not comparable with positions after a structural change
+                    slot = new Slot(-1, event);
+                    cellSlots.clear();
+                }
+                buffer.offerLast(slot);
+                if (0 == demand) { return; }
+            }
+            schedule();
+        }
+
+        @Override public void request(final long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("the number of requested events must be positive"));
+                return;
+            }
+            synchronized (this) {
+                if (cancelled) { return; }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            schedule();
+        }
+
+        @Override public void cancel() {
+            synchronized (this) {
+                if (cancelled) { return; }
+                cancelled = true;
+                buffer.clear();
+                cellSlots.clear();
+                notifyAll();
+            }
+            dispatcher.removeObserver(MEvent.ANY, this);
+        }
+
+
+        /**
+         * Replaces a buffered event of the same cell by the given item event
+         * @param event
+         * @return true if the event was conflated
+         */
+        private boolean conflate(final MEvent event) {
+            if (!(event instanceof MItemEvent)) { return false; }
+            final MItemEvent<?> itemEvent = (MItemEvent<?>) event;
+            final Slot          slot      = cellSlots.get(MatrixItemIndex.key(itemEvent.getX(), itemEvent.getY()));
+            if (null == slot) { return false; }
+            final Object oldItem = null == slot.event ? itemEvent.getOldItem() : ((MItemEvent<?>) slot.event).getOldItem();
+            final Object item    = itemEvent.getItem();
+            if (null == oldItem && null == item) {
+                // Added and removed again, nothing to deliver
+                slot.event = null;
+            } else {
+                slot.event = new MItemEvent<>(itemEvent.getSource(), null == oldItem ? ITEM_ADDED : null == item ? ITEM_REMOVED : ITEM_CHANGED, itemEvent.getX(), itemEvent.getY(), oldItem, item);
+            }
+            return true;
+        }
+
+        private void removeCellSlot(final Slot slot) {
+            if (null != slot && -1 != slot.cell && cellSlots.get(slot.cell) == slot) { cellSlots.remove(slot.cell); }
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) { return; }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                cancel();
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * Passes buffered events to the subscriber as long as it requested more events
+         */
+        private void drain() {
+            while (true) {
+                final MEvent event;
+                synchronized (this) {
+                    if (cancelled || 0 == demand || buffer.isEmpty()) {
+                        scheduled.set(false);
+                        break;
+                    }
+                    final Slot slot = buffer.pollFirst();
+                    removeCellSlot(slot);
+                    notifyAll();
+                    if (null == slot.event) { continue; }
+                    event = slot.event;
+                    if (Long.MAX_VALUE != demand) { demand--; }
+                }
+                try {
+                    subscriber.onNext(event);
+                } catch (RuntimeException e) {
+                    cancel();
+                    subscriber.onError(e);
+                    return;
+                }
+            }
+            // Events or demand that arrived after the last check but before the flag was reset
+            synchronized (this) {
+                if (cancelled || 0 == demand || buffer.isEmpty()) { return; }
+            }
+            schedule();
+        }
+    }
+}
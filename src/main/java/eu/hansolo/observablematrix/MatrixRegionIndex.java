@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MBatchEvent;
+import eu.hansolo.observablematrix.event.MEvent;
+import eu.hansolo.observablematrix.event.MItemEvent;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+
+
+/**
+ * A grid of buckets over the rectangles of the RegionSubscriptions of a matrix.
+ * Each bucket covers a square block of cells and holds the subscriptions
+ * whose rectangle overlaps it, so finding the subscriptions of a cell is
+ * one array lookup and a loop over the few subscriptions of its block.
+ * The block size grows with the observed area so that the grid has at
+ * most MAX_BUCKETS buckets.
+ * An index never changes, adding or removing a subscription and structural
+ * changes of the matrix return a new index (or null if no subscription is left).
+ */
+final class MatrixRegionIndex {
+    private static final RegionSubscription[]   NO_SUBSCRIPTIONS  = new RegionSubscription[0];
+    private static final int                    MIN_BUCKET_SHIFT  = 4;
+    private static final int                    MAX_BUCKETS       = 65_536;
+    private final        RegionSubscription[]   subscriptions;
+    private final        int                    bucketShift;
+    private final        int                    bucketCols;
+    private final        int                    bucketRows;
+    private final        RegionSubscription[][] buckets;
+
+
+    // ******************** Constructors **************************************
+    MatrixRegionIndex(final RegionSubscription[] subscriptions) {
+        int maxX = 0;
+        int maxY = 0;
+        for (RegionSubscription subscription : subscriptions) {
+            final int[] region = subscription.getRegion();
+            maxX = Math.max(maxX, region[0] + region[2]);
+            maxY = Math.max(maxY, region[1] + region[3]);
+        }
+        int shift = MIN_BUCKET_SHIFT;
+        while ((long) noOfBuckets(maxX, shift) * noOfBuckets(maxY, shift) > MAX_BUCKETS) { shift++; }
+
+        this.subscriptions = subscriptions;
+        this.bucketShift   = shift;
+        this.bucketCols    = noOfBuckets(maxX, shift);
+        this.bucketRows    = noOfBuckets(maxY, shift);
+        this.buckets       = new RegionSubscription[bucketCols * bucketRows][];
+
+        // Count the subscriptions per bucket first so that each bucket is allocated only once
+        final int[] counts = new int[buckets.length];
+        for (RegionSubscription subscription : subscriptions) {
+            final int[] region = subscription.getRegion();
+            for (int bx = region[0] >> shift ; bx <= (region[0] + region[2] - 1) >> shift ; bx++) {
+                for (int by = region[1] >> shift ; by <= (region[1] + region[3] - 1) >> shift ; by++) { counts[bx * bucketRows + by]++; }
+            }
+        }
+        for (int i = 0 ; i < buckets.length ; i++) {
+            buckets[i] = 0 == counts[i] ? NO_SUBSCRIPTIONS : new RegionSubscription[counts[i]];
+            counts[i]  = 0;
+        }
+        for (RegionSubscription subscription : subscriptions) {
+            final int[] region = subscription.getRegion();
+            for (int bx = region[0] >> shift ; bx <= (region[0] + region[2] - 1) >> shift ; bx++) {
+                for (int by = region[1] >> shift ; by <= (region[1] + region[3] - 1) >> shift ; by++) {
+                    final int bucket = bx * bucketRows + by;
+                    buckets[bucket][counts[bucket]++] = subscription;
+                }
+            }
+        }
+    }
+
+
+    // ******************** Methods *******************************************
+    RegionSubscription[] getSubscriptions() { return subscriptions; }
+
+    MatrixRegionIndex add(final RegionSubscription subscription) {
+        final RegionSubscription[] newSubscriptions = new RegionSubscription[subscriptions.length + 1];
+        System.arraycopy(subscriptions, 0, newSubscriptions, 0, subscriptions.length);
+        newSubscriptions[subscriptions.length] = subscription;
+        return new MatrixRegionIndex(newSubscriptions);
+    }
+
+    /**
+     * Returns an index without the given subscription
+     * @param subscription
+     * @return an index without the given subscription, this index if it does not contain it or null if it was the last one
+     */
+    MatrixRegionIndex remove(final RegionSubscription subscription) {
+        final List<RegionSubscription> newSubscriptions = new ArrayList<>(subscriptions.length);
+        for (RegionSubscription s : subscriptions) {
+            if (s != subscription) { newSubscriptions.add(s); }
+        }
+        if (newSubscriptions.size() == subscriptions.length) { return this; }
+        return newSubscriptions.isEmpty() ? null : new MatrixRegionIndex(newSubscriptions.toArray(NO_SUBSCRIPTIONS));
+    }
+
+    /**
+     * Returns true if at least one subscription observes the given cell
+     * @param x
+     * @param y
+     * @return true if at least one subscription observes the given cell
+     */
+    boolean hasSubscriptionsAt(final int x, final int y) {
+        for (RegionSubscription subscription : bucketAt(x, y)) {
+            if (subscription.contains(x, y)) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * Passes an MItemEvent to the subscriptions that observe its cell and
+     * an MBatchEvent with the changes in their rectangle to each subscription
+     * that observes at least one of the changed cells. Other events are ignored.
+     * @param event
+     */
+    void fireEvent(final MEvent event) {
+        if (event instanceof MItemEvent) {
+            final MItemEvent<?> itemEvent = (MItemEvent<?>) event;
+            final int           x         = itemEvent.getX();
+            final int           y         = itemEvent.getY();
+            for (RegionSubscription subscription : bucketAt(x, y)) {
+                if (subscription.contains(x, y) && !subscription.isCancelled()) { subscription.getObserver().handle(event); }
+            }
+        } else if (event instanceof MBatchEvent) {
+            final MBatchEvent<?>                      batchEvent = (MBatchEvent<?>) event;
+            final Map<RegionSubscription, MatrixBatch> batches    = new IdentityHashMap<>();
+            for (int i = 0 ; i < batchEvent.getNoOfChanges() ; i++) {
+                final int x = batchEvent.getX(i);
+                final int y = batchEvent.getY(i);
+                for (RegionSubscription subscription : bucketAt(x, y)) {
+                    if (subscription.contains(x, y)) { batches.computeIfAbsent(subscription, s -> new MatrixBatch()).add(x, y, batchEvent.getOldItem(i), batchEvent.getItem(i)); }
+                }
+            }
+            for (RegionSubscription subscription : subscriptions) {
+                final MatrixBatch batch = batches.get(subscription);
+                if (null != batch && !subscription.isCancelled()) { subscription.getObserver().handle(batch.toEvent(event.getSource())); }
+            }
+        }
+    }
+
+    /**
+     * Returns an index where the rectangles follow a column that was inserted at the given index
+     * @param at
+     * @return an index where the rectangles follow the inserted column
+     */
+    MatrixRegionIndex insertCol(final int at) { return adjust(true, (start, length) -> start >= at ? start + 1 : start, (start, length) -> start < at && at < start + length ? length + 1 : length); }
+
+    MatrixRegionIndex removeCol(final int at) { return adjust(true, (start, length) -> at < start ? start - 1 : start, (start, length) -> at >= start && at < start + length ? length - 1 : length); }
+
+    MatrixRegionIndex insertRow(final int at) { return adjust(false, (start, length) -> start >= at ? start + 1 : start, (start, length) -> start < at && at < start + length ? length + 1 : length); }
+
+    MatrixRegionIndex removeRow(final int at) { return adjust(false, (start, length) -> at < start ? start - 1 : start, (start, length) -> at >= start && at < start + length ? length - 1 : length); }
+
+    /**
+     * Returns an index where the rectangles are clipped to the given size
+     * @param cols
+     * @param rows
+     * @return an index where the rectangles are clipped to the given size
+     */
+    MatrixRegionIndex resize(final int cols, final int rows) {
+        final MatrixRegionIndex index = adjust(true, (start, length) -> start, (start, length) -> Math.min(start + length, cols) - start);
+        return null == index ? null : index.adjust(false, (start, length) -> start, (start, length) -> Math.min(start + length, rows) - start);
+    }
+
+    MatrixRegionIndex mirrorCols(final int cols) { return adjust(true, (start, length) -> cols - start - length, (start, length) -> length); }
+
+    MatrixRegionIndex mirrorRows(final int rows) { return adjust(false, (start, length) -> rows - start - length, (start, length) -> length); }
+
+
+    // ******************** Private methods ***********************************
+    private RegionSubscription[] bucketAt(final int x, final int y) {
+        final int bx = x >> bucketShift;
+        final int by = y >> bucketShift;
+        if (x < 0 || y < 0 || bx >= bucketCols || by >= bucketRows) { return NO_SUBSCRIPTIONS; }
+        return buckets[bx * bucketRows + by];
+    }
+
+    /**
+     * Maps the start and length of the rectangles in the columns (or rows) and
+     * returns an index of the new rectangles. Subscriptions whose rectangle has
+     * no columns (or rows) left will be cancelled.
+     * @param cols      true to map the columns, false to map the rows
+     * @param startMap  maps (start, length) to the new start
+     * @param lengthMap maps (start, length) to the new length
+     * @return an index of the new rectangles or null if no subscription is left
+     */
+    private MatrixRegionIndex adjust(final boolean cols, final IntBinaryOperator startMap, final IntBinaryOperator lengthMap) {
+        final List<RegionSubscription> adjusted = new ArrayList<>(subscriptions.length);
+        final int                      axis     = cols ? 0 : 1;
+        for (RegionSubscription subscription : subscriptions) {
+            final int[] region = subscription.getRegion();
+            final int   start  = startMap.applyAsInt(region[axis], region[axis + 2]);
+            final int   length = lengthMap.applyAsInt(region[axis], region[axis + 2]);
+            if (length < 1) {
+                subscription.setCancelled();
+                continue;
+            }
+            if (cols) {
+                subscription.setRegion(start, region[1], length, region[3]);
+            } else {
+                subscription.setRegion(region[0], start, region[2], length);
+            }
+            adjusted.add(subscription);
+        }
+        return adjusted.isEmpty() ? null : new MatrixRegionIndex(adjusted.toArray(NO_SUBSCRIPTIONS));
+    }
+
+    private static int noOfBuckets(final int size, final int shift) { return size < 1 ? 0 : ((size - 1) >> shift) + 1; }
+}
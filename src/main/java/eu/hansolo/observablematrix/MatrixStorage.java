@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+
+/**
+ * The cells of an ObservableMatrix.
+ * Implementations do not check bounds and do not fire events,
+ * this is done by the matrix itself.
+ * @param <T>
+ */
+interface MatrixStorage<T> {
+
+    @FunctionalInterface
+    interface ItemConsumer<T> {
+        void accept(int x, int y, T item);
+    }
+
+
+    T get(int x, int y);
+
+    void set(int x, int y, T item);
+
+    int getCols();
+
+    int getRows();
+
+    /**
+     * Returns the number of non null items in the storage
+     * @return the number of non null items in the storage
+     */
+    int getNoOfItems();
+
+    /**
+     * Calls the given consumer for each non null item in the storage
+     * @param consumer
+     */
+    void forEachItem(ItemConsumer<T> consumer);
+
+    /**
+     * Inserts a column of null items at the given index
+     * @param at index of the new column
+     */
+    void insertCol(int at);
+
+    void removeCol(int at);
+
+    /**
+     * Inserts a row of null items at the given index
+     * @param at index of the new row
+     */
+    void insertRow(int at);
+
+    void removeRow(int at);
+
+    /**
+     * Changes the size of the storage, items outside of the new size will be lost
+     * @param cols new number of columns
+     * @param rows new number of rows
+     */
+    void resize(int cols, int rows);
+
+    /**
+     * Makes sure that the storage can hold at least the given number of columns
+     * and rows without reallocating, the size of the storage will not change
+     * @param cols minimum number of columns
+     * @param rows minimum number of rows
+     */
+    void ensureCapacity(int cols, int rows);
+
+    /**
+     * Releases the spare capacity so that the storage only uses the memory
+     * that is needed for the current number of columns and rows
+     */
+    void trimToSize();
+
+    /**
+     * Sets all items to null
+     */
+    void clear();
+
+    void mirrorCols();
+
+    void mirrorRows();
+
+    /**
+     * Returns true if the given item is stored, the cells will be scanned in memory order
+     * @param item
+     * @return true if the given item is stored
+     */
+    boolean contains(Object item);
+
+    /**
+     * Returns the position of the first occurence of the given item (row by row) as
+     * long where the upper 32 bits contain the column and the lower 32 bits contain
+     * the row, -1 will be returned if the item was not found
+     * @param item
+     * @return the position of the first occurence of the given item or -1
+     */
+    long indexOf(Object item);
+
+    /**
+     * Returns the items as 2-dimensional array [col][row], depending on the
+     * implementation this is either the backing array or a copy
+     * @return the items as 2-dimensional array [col][row]
+     */
+    T[][] toArray();
+}
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MBatchEvent;
+import eu.hansolo.observablematrix.event.MEvent;
+import eu.hansolo.observablematrix.event.MEventType;
+import eu.hansolo.observablematrix.event.MItemEvent;
+import eu.hansolo.observablematrix.event.MObserver;
+import eu.hansolo.observablematrix.event.MRegionEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+
+/**
+ * A view on the cells of an ObservableMatrix that does not copy any items.
+ * Each position (x, y) of the view is mapped to a position of the source matrix
+ * by an origin, a step in x and y and an optional transposition.
+ * Reading and writing items of the view reads and writes the items of the source
+ * matrix and MItemEvents, MBatchEvents and MRegionEvents of the source matrix
+ * will be forwarded to the observers of the view with the positions mapped into
+ * the coordinates of the view.
+ * Views are defined in coordinates of the source matrix at the time they are
+ * created, structural changes of the source (adding or removing columns and rows)
+ * will not move the view. Only views on the whole matrix (e.g. transpose())
+ * follow the size of the source matrix.
+ * @param <T>
+ */
+public class MatrixView<T> {
+    private final ObservableMatrix<T>       source;
+    private final int                       originX;
+    private final int                       originY;
+    private final int                       stepX;
+    private final int                       stepY;
+    private final boolean                   transposed;
+    private final int                       cols;
+    private final int                       rows;
+    private final boolean                   wholeMatrix;
+    private final MEventDispatcher          dispatcher;
+    private final MObserver<MItemEvent<?>>  sourceObserver;
+    private final MObserver<MBatchEvent<?>> sourceBatchObserver;
+    private final MObserver<MRegionEvent>   sourceRegionObserver;
+    private       boolean                   attached;
+
+
+    // ******************** Constructors **************************************
+    MatrixView(final ObservableMatrix<T> source, final boolean transposed) {
+        this(source, 0, 0, 1, 1, transposed, -1, -1, true);
+    }
+    MatrixView(final ObservableMatrix<T> source, final int originX, final int originY, final int stepX, final int stepY, final boolean transposed, final int cols, final int rows) {
+        this(source, originX, originY, stepX, stepY, transposed, cols, rows, false);
+    }
+    private MatrixView(final ObservableMatrix<T> source, final int originX, final int originY, final int stepX, final int stepY, final boolean transposed, final int cols, final int rows, final boolean wholeMatrix) {
+        this.source               = source;
+        this.originX              = originX;
+        this.originY              = originY;
+        this.stepX                = stepX;
+        this.stepY                = stepY;
+        this.transposed           = transposed;
+        this.cols                 = cols;
+        this.rows                 = rows;
+        this.wholeMatrix          = wholeMatrix;
+        this.dispatcher           = new MEventDispatcher();
+        this.sourceObserver       = this::forwardItemEvent;
+        this.sourceBatchObserver  = this::forwardBatchEvent;
+        this.sourceRegionObserver = this::forwardRegionEvent;
+        this.attached             = false;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the matrix that contains the items of this view
+     * @return the matrix that contains the items of this view
+     */
+    public ObservableMatrix<T> getSource() { return source; }
+
+    /**
+     * Returns the number of columns in the view
+     * @return the number of columns in the view
+     */
+    public int getNoOfCols() {
+        if (wholeMatrix) { return transposed ? source.getNoOfRows() : source.getNoOfCols(); }
+        return cols;
+    }
+
+    /**
+     * Returns the number of rows in the view
+     * @return the number of rows in the view
+     */
+    public int getNoOfRows() {
+        if (wholeMatrix) { return transposed ? source.getNoOfCols() : source.getNoOfRows(); }
+        return rows;
+    }
+
+    /**
+     * Returns the item at the given position of the view
+     * @param x Column in the view
+     * @param y Row in the view
+     * @return the item at the given position of the view
+     */
+    public T getItemAt(final int x, final int y) {
+        checkBounds(x, y);
+        return source.getItemAt(sourceX(x, y), sourceY(x, y));
+    }
+
+    /**
+     * Sets the given item at the given position of the view in the source matrix
+     * @param x Column in the view
+     * @param y Row in the view
+     * @param item
+     */
+    public void setItemAt(final int x, final int y, final T item) { setItemAt(x, y, item, true); }
+    public void setItemAt(final int x, final int y, final T item, final boolean notify) {
+        checkBounds(x, y);
+        source.setItemAt(sourceX(x, y), sourceY(x, y), item, notify);
+    }
+
+    /**
+     * Sets the item at the given position of the view to null.
+     * In contrast to ObservableMatrix.removeItemAt() this will never
+     * remove empty columns or rows from the source matrix
+     * @param x Column in the view
+     * @param y Row in the view
+     */
+    public void removeItemAt(final int x, final int y) { setItemAt(x, y, null, true); }
+
+    /**
+     * Get all items in column specified by index as list
+     * @param col index of column to return as list
+     * @return all items in column specified by index as list
+     */
+    public List<T> getCol(final int col) {
+        final int rows = getNoOfRows();
+        List<T>   c    = new ArrayList<>(rows);
+        for (int y = 0 ; y < rows ; y++) { c.add(getItemAt(col, y)); }
+        return c;
+    }
+
+    /**
+     * Get all items in row specified by index as list
+     * @param row index of row to return as list
+     * @return all items in row specified by index as list
+     */
+    public List<T> getRow(final int row) {
+        final int cols = getNoOfCols();
+        List<T>   r    = new ArrayList<>(cols);
+        for (int x = 0 ; x < cols ; x++) { r.add(getItemAt(x, row)); }
+        return r;
+    }
+
+    /**
+     * Returns all items in the view as stream (column by column)
+     * @return all items in the view as stream
+     */
+    public Stream<T> stream() {
+        final int cols = getNoOfCols();
+        final int rows = getNoOfRows();
+        return IntStream.range(0, cols).boxed().flatMap(x -> IntStream.range(0, rows).mapToObj(y -> getItemAt(x, y)));
+    }
+
+    /**
+     * Returns a transposed view on this view where column x is row x of this view
+     * @return a transposed view on this view
+     */
+    public MatrixView<T> transpose() {
+        return new MatrixView<>(source, originX, originY, stepX, stepY, !transposed, rows, cols, wholeMatrix);
+    }
+
+    /**
+     * Returns a view on the given rectangle of this view
+     * @param x    column of the upper left corner in this view
+     * @param y    row of the upper left corner in this view
+     * @param cols number of columns of the new view
+     * @param rows number of rows of the new view
+     * @return a view on the given rectangle of this view
+     */
+    public MatrixView<T> subMatrix(final int x, final int y, final int cols, final int rows) { return stridedView(x, y, cols, rows, 1, 1); }
+
+    /**
+     * Returns a view on every stepX-th column and every stepY-th row of this view
+     * starting at the given position
+     * @param x     column of the first item in this view
+     * @param y     row of the first item in this view
+     * @param cols  number of columns of the new view
+     * @param rows  number of rows of the new view
+     * @param stepX distance between two columns of the new view in this view
+     * @param stepY distance between two rows of the new view in this view
+     * @return a view on every stepX-th column and every stepY-th row of this view
+     */
+    public MatrixView<T> stridedView(final int x, final int y, final int cols, final int rows, final int stepX, final int stepY) {
+        checkView(x, y, cols, rows, stepX, stepY, getNoOfCols(), getNoOfRows());
+        if (transposed) {
+            return new MatrixView<>(source, sourceX(x, y), sourceY(x, y), this.stepX * stepY, this.stepY * stepX, true, cols, rows);
+        } else {
+            return new MatrixView<>(source, sourceX(x, y), sourceY(x, y), this.stepX * stepX, this.stepY * stepY, false, cols, rows);
+        }
+    }
+
+
+    // ******************** Private methods ***********************************
+    private int sourceX(final int x, final int y) { return originX + stepX * (transposed ? y : x); }
+
+    private int sourceY(final int x, final int y) { return originY + stepY * (transposed ? x : y); }
+
+    private void checkBounds(final int x, final int y) {
+        if (x < 0 || x >= getNoOfCols() || y < 0 || y >= getNoOfRows()) { throw new IllegalArgumentException("x/y must be within the view"); }
+    }
+
+    static void checkView(final int x, final int y, final int cols, final int rows, final int stepX, final int stepY, final int maxCols, final int maxRows) {
+        if (cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        if (stepX < 1 || stepY < 1) { throw new IllegalArgumentException("stepX/stepY cannot be smaller than 1"); }
+        if (x < 0 || y < 0 || x + (cols - 1) * (long) stepX >= maxCols || y + (rows - 1) * (long) stepY >= maxRows) {
+            throw new IllegalArgumentException("view must be within the matrix");
+        }
+    }
+
+    /**
+     * Maps the position of the given event of the source matrix into this view
+     * and fires it to the observers of the view if it is part of the view
+     * @param event
+     */
+    private void forwardItemEvent(final MItemEvent<?> event) {
+        final long position = viewPosition(event.getX(), event.getY());
+        if (-1 == position) { return; }
+        fireEvent(new MItemEvent<>(MatrixView.this, event.getEventType(), MatrixItemIndex.col(position), MatrixItemIndex.row(position), event.getOldItem(), event.getItem()));
+    }
+
+    /**
+     * Fires the changes of the given batch event of the source matrix that
+     * are part of this view as one batch event to the observers of the view
+     * @param event
+     */
+    private void forwardBatchEvent(final MBatchEvent<?> event) {
+        final MatrixBatch batch = new MatrixBatch();
+        for (int i = 0 ; i < event.getNoOfChanges() ; i++) {
+            final long position = viewPosition(event.getX(i), event.getY(i));
+            if (-1 != position) { batch.add(MatrixItemIndex.col(position), MatrixItemIndex.row(position), event.getOldItem(i), event.getItem(i)); }
+        }
+        if (!batch.isEmpty()) { fireEvent(batch.toEvent(MatrixView.this)); }
+    }
+
+    /**
+     * Fires the part of the given region of the source matrix that
+     * is inside this view as a region of the view
+     * @param event
+     */
+    private void forwardRegionEvent(final MRegionEvent event) {
+        final int minX = firstViewIndex(event.getX() - originX, stepX);
+        final int minY = firstViewIndex(event.getY() - originY, stepY);
+        final int maxX = Math.min(Math.floorDiv(event.getX() + event.getWidth() - 1 - originX, stepX), transposed ? getNoOfRows() - 1 : getNoOfCols() - 1);
+        final int maxY = Math.min(Math.floorDiv(event.getY() + event.getHeight() - 1 - originY, stepY), transposed ? getNoOfCols() - 1 : getNoOfRows() - 1);
+        if (minX > maxX || minY > maxY) { return; }
+        if (transposed) {
+            fireEvent(new MRegionEvent(MatrixView.this, event.getEventType(), minY, minX, maxY - minY + 1, maxX - minX + 1));
+        } else {
+            fireEvent(new MRegionEvent(MatrixView.this, event.getEventType(), minX, minY, maxX - minX + 1, maxY - minY + 1));
+        }
+    }
+
+    /**
+     * Returns the first index of the view that is at or behind the given distance from the origin
+     * @param distance distance of a position in the source matrix from the origin of the view
+     * @param step
+     * @return the first index of the view that is at or behind the given distance
+     */
+    private static int firstViewIndex(final int distance, final int step) { return distance <= 0 ? 0 : -Math.floorDiv(-distance, step); }
+
+    /**
+     * Maps the given position of the source matrix into this view
+     * @param sourceX
+     * @param sourceY
+     * @return the position in the view as in MatrixItemIndex.key() or -1 if it is not part of the view
+     */
+    private long viewPosition(final int sourceX, final int sourceY) {
+        final int dx = sourceX - originX;
+        final int dy = sourceY - originY;
+        if (dx < 0 || dy < 0 || dx % stepX != 0 || dy % stepY != 0) { return -1; }
+        final int x = transposed ? dy / stepY : dx / stepX;
+        final int y = transposed ? dx / stepX : dy / stepY;
+        if (x >= getNoOfCols() || y >= getNoOfRows()) { return -1; }
+        return MatrixItemIndex.key(x, y);
+    }
+
+    /**
+     * Observes the item events of the source matrix only as long as
+     * there are observers on this view, so that unused views will
+     * not be referenced by the source matrix
+     */
+    private void updateSourceObserver() {
+        final boolean hasObservers = dispatcher.hasObservers();
+        if (hasObservers && !attached) {
+            source.setOnMEvent(MItemEvent.ANY, sourceObserver);
+            source.setOnMEvent(MBatchEvent.ANY, sourceBatchObserver);
+            source.setOnMEvent(MRegionEvent.ANY, sourceRegionObserver);
+            attached = true;
+        } else if (!hasObservers && attached) {
+            source.removeOnMEvent(MItemEvent.ANY, sourceObserver);
+            source.removeOnMEvent(MBatchEvent.ANY, sourceBatchObserver);
+            source.removeOnMEvent(MRegionEvent.ANY, sourceRegionObserver);
+            attached = false;
+        }
+    }
+
+
+    // ******************** Event Handling ************************************
+    /**
+     * Add the given MObserver for the given TYPE to the map of observers,
+     * the view only fires MItemEvents, MBatchEvents and MRegionEvents
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     */
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer) {
+        dispatcher.addObserver(type, observer);
+        updateSourceObserver();
+    }
+
+    /**
+     * Add the given MObserver for the given TYPE to the map of observers,
+     * the observer will be called in order on the given executor
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     * @param executor The executor that runs the observer
+     */
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer, final Executor executor) {
+        dispatcher.addObserver(type, observer, executor);
+        updateSourceObserver();
+    }
+
+    /**
+     * Remove the given MObserver<T> for the given TYPE from the map of observers
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     */
+    public void removeOnMEvent(final MEventType<? extends MEvent> type, final MObserver<?> observer) {
+        dispatcher.removeObserver(type, observer);
+        updateSourceObserver();
+    }
+
+    /**
+     * Removes all observers
+     */
+    public void removeAllObservers() {
+        dispatcher.removeAllObservers();
+        updateSourceObserver();
+    }
+
+    /**
+     * Waits until all observers that were added with an executor have handled
+     * the events that were fired before
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return false if the timeout elapsed before all events were handled
+     * @throws InterruptedException
+     */
+    public boolean awaitEvents(final long timeout, final TimeUnit unit) throws InterruptedException { return dispatcher.awaitAsyncObservers(timeout, unit); }
+
+
+    void fireEvent(final MEvent event) { dispatcher.fireEvent(event); }
+
+
+    @Override public String toString() {
+        final int     cols   = getNoOfCols();
+        final int     rows   = getNoOfRows();
+        StringBuilder output = new StringBuilder();
+        for (int y = 0 ; y < rows ; y++) {
+            for (int x = 0 ; x < cols ; x++) {
+                output.append(getItemAt(x, y)).append(" ");
+            }
+            output.append("\n");
+        }
+        return output.toString();
+    }
+}
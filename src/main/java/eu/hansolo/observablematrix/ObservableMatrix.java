@@ -16,26 +16,32 @@
 
 package eu.hansolo.observablematrix;
 
+import eu.hansolo.observablematrix.event.MBatchEvent;
+import eu.hansolo.observablematrix.event.MChangeListener;
 import eu.hansolo.observablematrix.event.MColumnEvent;
 import eu.hansolo.observablematrix.event.MColumnsEvent;
 import eu.hansolo.observablematrix.event.MEvent;
 import eu.hansolo.observablematrix.event.MEventType;
+import eu.hansolo.observablematrix.event.MFlow;
 import eu.hansolo.observablematrix.event.MItemEvent;
 import eu.hansolo.observablematrix.event.MObserver;
+import eu.hansolo.observablematrix.event.MRegionEvent;
 import eu.hansolo.observablematrix.event.MRowEvent;
 import eu.hansolo.observablematrix.event.MRowsEvent;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static eu.hansolo.observablematrix.event.MColumnEvent.COLUMN_ADDED;
@@ -53,12 +59,24 @@ import static eu.hansolo.observablematrix.event.MRowsEvent.ROWS_MIRRORED;
 
 public class ObservableMatrix<T> {
     private final          Class<T>                     type;
-    private final          Map<String, List<MObserver>> observers;
-    private                T[][]                        matrix;
+    private final          MEventDispatcher             dispatcher;
+    public  static final   double                       DEFAULT_SPARSE_FILL_RATIO = 0.05;
+    public  static final   double                       DEFAULT_DENSE_FILL_RATIO  = 0.15;
+    private static final   int                          NO_OF_STRIPES             = 64;
+    private static final   int                          REMOVED_NONE              = 0;
+    private static final   int                          REMOVED_COL               = 1;
+    private static final   int                          REMOVED_ROW               = 2;
+    private final          StorageMode                  denseStorageMode;
+    private                StorageMode                  storageMode;
+    private                MatrixStorage<T>             storage;
+    private final          MatrixOccupancy              occupancy;
+    private                MatrixItemIndex              itemIndex;
     private       volatile int                          cols;
     private       volatile int                          rows;
     private                boolean                      colsMirrored;
     private                boolean                      rowsMirrored;
+    private                boolean                      colsReversed;
+    private                boolean                      rowsReversed;
     private                Consumer<MItemEvent<T>>      itemAddedConsumer;
     private                Consumer<MItemEvent<T>>      itemRemovedConsumer;
     private                Consumer<MItemEvent<T>>      itemChangedConsumer;
@@ -70,7 +88,22 @@ public class ObservableMatrix<T> {
     private                Consumer<MRowsEvent>         rowsChangedConsumer;
     private                Consumer<MColumnsEvent>      columnsMirroredConsumer;
     private                Consumer<MRowsEvent>         rowsMirroredConsumer;
+    private       volatile MChangeListener<T>[]         changeListeners;
+    private       volatile MatrixJournal<T>[]           journals;
+    private                Consumer<MBatchEvent<T>>     batchUpdatedConsumer;
+    private                Consumer<MRegionEvent>       regionChangedConsumer;
     private                boolean                      resizeMatrixWhenInnerRowOrColIsRemoved;
+    private                boolean                      adaptiveStorage;
+    private                double                       sparseFillRatio;
+    private                double                       denseFillRatio;
+    private       volatile StampedLock                  lock;
+    private                Object[]                     stripes;
+    private                Thread                       lockOwner;
+    private final          Object                       batchLock;
+    private                MatrixBatch                  batch;
+    private       volatile int                          batchDepth;
+    private       volatile MatrixDirtyRegions           dirtyRegions;
+    private       volatile MatrixRegionIndex            regionIndex;
 
 
     // ******************** Constructors **************************************
@@ -78,14 +111,35 @@ public class ObservableMatrix<T> {
         this(type, cols, rows, false);
     }
     public ObservableMatrix(Class<T> type, final int cols, final int rows, final boolean resizeMatrixWhenInnerRowOrColIsRemoved) {
+        this(type, cols, rows, resizeMatrixWhenInnerRowOrColIsRemoved, StorageMode.COLUMN_ARRAYS);
+    }
+    public ObservableMatrix(Class<T> type, final int cols, final int rows, final StorageMode storageMode) {
+        this(type, cols, rows, false, storageMode);
+    }
+    public ObservableMatrix(Class<T> type, final int cols, final int rows, final boolean resizeMatrixWhenInnerRowOrColIsRemoved, final StorageMode storageMode) {
+        if (null == storageMode) { throw new IllegalArgumentException("storageMode cannot be null"); }
+        @SuppressWarnings("unchecked") final MChangeListener<T>[] noChangeListeners = (MChangeListener<T>[]) new MChangeListener<?>[0];
+        @SuppressWarnings("unchecked") final MatrixJournal<T>[]   noJournals        = (MatrixJournal<T>[]) new MatrixJournal<?>[0];
         this.type                                   = type;
-        this.observers                              = new ConcurrentHashMap<>();;
-        this.matrix                                 = createArray(type, cols, rows);
+        this.dispatcher                             = new MEventDispatcher();
+        this.changeListeners                        = noChangeListeners;
+        this.journals                               = noJournals;
+        this.denseStorageMode                       = StorageMode.SPARSE == storageMode ? StorageMode.ROW_MAJOR : storageMode;
+        this.storageMode                            = storageMode;
+        this.storage                                = storageMode.createStorage(type, cols, rows);
+        this.occupancy                              = new MatrixOccupancy(cols, rows);
         this.cols                                   = cols;
         this.rows                                   = rows;
         this.colsMirrored                           = false;
         this.rowsMirrored                           = false;
+        this.colsReversed                           = false;
+        this.rowsReversed                           = false;
         this.resizeMatrixWhenInnerRowOrColIsRemoved = resizeMatrixWhenInnerRowOrColIsRemoved;
+        this.adaptiveStorage                        = false;
+        this.sparseFillRatio                        = DEFAULT_SPARSE_FILL_RATIO;
+        this.denseFillRatio                         = DEFAULT_DENSE_FILL_RATIO;
+        this.batchLock                              = new Object();
+        this.batchDepth                             = 0;
     }
 
 
@@ -97,8 +151,34 @@ public class ObservableMatrix<T> {
      * @return the given item in the matrix at the given position defined by x and y
      */
     public T getItemAt(final int x, final int y) {
-        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
-        return matrix[x][y];
+        final StampedLock lock = this.lock;
+        if (null != lock) {
+            // Optimistic read, only falls back to the read lock if a structural change interfered
+            final long stamp = lock.tryOptimisticRead();
+            if (0 != stamp) {
+                boolean inBounds = false;
+                T       item     = null;
+                try {
+                    inBounds = x >= 0 && x < cols && y >= 0 && y < rows;
+                    if (inBounds) { item = get(x, y); }
+                } catch (RuntimeException e) {
+                    inBounds = true; // inconsistent read
+                    item     = null;
+                    if (lock.validate(stamp)) { throw e; }
+                }
+                if (lock.validate(stamp)) {
+                    if (!inBounds) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+                    return item;
+                }
+            }
+        }
+        final long stamp = lockRead();
+        try {
+            if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+            return get(x, y);
+        } finally {
+            unlockRead(stamp);
+        }
     }
 
     /**
@@ -111,29 +191,49 @@ public class ObservableMatrix<T> {
         setItemAt(x, y, item, true);
     }
     public void setItemAt(final int x, final int y, final T item, final boolean notify) {
-        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
-
-        T oldItem = matrix[x][y];
-        matrix[x][y] = item;
+        T       oldItem = null;
+        boolean written = false;
+
+        final StampedLock lock = this.lock;
+        if (null != lock && Thread.currentThread() != lockOwner) {
+            // Writes that do not change the occupancy only exclude structural changes and writes to the same stripe
+            final long stamp = lock.readLock();
+            try {
+                if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+                if (StorageMode.SPARSE != storageMode && null == itemIndex) {
+                    final int col = physicalCol(x);
+                    final int row = physicalRow(y);
+                    synchronized (stripes[(31 * col + row) & (NO_OF_STRIPES - 1)]) {
+                        oldItem = storage.get(col, row);
+                        if ((null == oldItem) == (null == item)) {
+                            storage.set(col, row, item);
+                            if (notify) { journalItemChange(x, y, oldItem, item); }
+                            written = true;
+                        }
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (!written) {
+            final long stamp = lockStructure();
+            try {
+                if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+                oldItem = set(x, y, item);
+                adaptStorage();
+                if (notify) { journalItemChange(x, y, oldItem, item); }
+            } finally {
+                unlockStructure(stamp);
+            }
+        }
 
         if (notify) {
-        if (null == oldItem && item != null) {
-            MItemEvent<T> evt = new MItemEvent<>(ObservableMatrix.this, ITEM_ADDED, x, y, oldItem, item);
-            if (null != itemAddedConsumer) { itemAddedConsumer.accept(evt);}
-            fireEvent(evt);
-        } else if (null != oldItem && item == null) {
-            MItemEvent<T> evt = new MItemEvent<>(ObservableMatrix.this, ITEM_REMOVED, x, y, oldItem, item);
-            if (null != itemRemovedConsumer) { itemRemovedConsumer.accept(evt); }
-            fireEvent(evt);
-        } else if (null != oldItem && item != null) {
-            MItemEvent<T> evt = new MItemEvent<>(ObservableMatrix.this, ITEM_CHANGED, x, y, oldItem, item);
-            if (null != itemChangedConsumer) { itemChangedConsumer.accept(evt); }
-            fireEvent(evt);
+            fireItemEvent(x, y, oldItem, item);
         } else {
-            return;
+            invalidateJournals();
         }
     }
-    }
 
     /**
      * Removes item at position defined by x and y
@@ -143,15 +243,23 @@ public class ObservableMatrix<T> {
      */
     public void removeItemAt(final int x, final int y) { removeItemAt(x, y, true); }
     public void removeItemAt(final int x, final int y, final boolean notify) {
-        if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
-        T oldItem = matrix[x][y];
-        matrix[x][y] = null;
+        final T    oldItem;
+        final long stamp = lockStructure();
+        try {
+            if (x < 0 || x > (cols - 1) || y < 0 || y > (rows - 1)) { throw new IllegalArgumentException("cols/rows cannot be smaller than 0"); }
+            oldItem = set(x, y, null);
+            adaptStorage();
+            if (notify) { journalItemChange(x, y, oldItem, null); }
+        } finally {
+            unlockStructure(stamp);
+        }
+        if (notify) { fireItemEvent(x, y, oldItem, null); }
+        final int removed = removeEmptyColumnOrRow(x, y, notify);
         if (notify) {
-        MItemEvent<T> evt = new MItemEvent<>(ObservableMatrix.this, ITEM_REMOVED, x, y, oldItem, null);
-        if (null != itemRemovedConsumer) { itemRemovedConsumer.accept(evt); }
-        fireEvent(evt);
+            fireRemovedColumnOrRow(removed, x, y);
+        } else {
+            invalidateJournals();
         }
-        checkForRemovedColumnsAndRows(x, y, notify);
     }
 
     /**
@@ -160,22 +268,26 @@ public class ObservableMatrix<T> {
      */
     public void removeItem(final T item) { removeItem(item, true); }
     public void removeItem(final T item, final boolean notify) {
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                T matrixItem = matrix[x][y];
-                if (null == matrixItem) {
-                    continue;
-                } else if (matrixItem.equals(item)) {
-                    matrix[x][y] = null;
-                    if (notify) {
-                    MItemEvent<T> evt = new MItemEvent<>(ObservableMatrix.this, ITEM_REMOVED, x, y, item, null);
-                    if (null != itemRemovedConsumer) { itemRemovedConsumer.accept(evt); }
-                    fireEvent(evt);
-                    }
-                    checkForRemovedColumnsAndRows(x, y, notify);
-                    return;
-                }
-            }
+        final int  x;
+        final int  y;
+        final long stamp = lockStructure();
+        try {
+            final long index = indexOf(item);
+            if (-1 == index) { return; }
+            x = (int) (index >>> 32);
+            y = (int) index;
+            set(x, y, null);
+            adaptStorage();
+            if (notify) { journalItemChange(x, y, item, null); }
+        } finally {
+            unlockStructure(stamp);
+        }
+        if (notify) { fireItemEvent(x, y, item, null); }
+        final int removed = removeEmptyColumnOrRow(x, y, notify);
+        if (notify) {
+            fireRemovedColumnOrRow(removed, x, y);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -185,12 +297,12 @@ public class ObservableMatrix<T> {
      * @return true if the given item will be found in the matrix
      */
     public boolean contains(final T item) {
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                if (null != matrix[x][y] && matrix[x][y].equals(item)) { return true; }
-            }
+        final long stamp = lockRead();
+        try {
+            return null == itemIndex ? storage.contains(item) : itemIndex.contains(item);
+        } finally {
+            unlockRead(stamp);
         }
-        return false;
     }
 
     /**
@@ -202,19 +314,82 @@ public class ObservableMatrix<T> {
      * @return the indices of the given item as an array of in[]
      */
     public int[] getIndicesOf(final T item) {
-        for (int y = 0; y < rows; y++) {
-            for (int x = 0; x < cols; x++) {
-                if (matrix[x][y].equals(item)) { return new int[]{x, y}; }
+        final long stamp = lockRead();
+        final long index;
+        try {
+            index = indexOf(item);
+        } finally {
+            unlockRead(stamp);
+        }
+        if (-1 == index) { return new int[]{-1, - 1}; }
+        return new int[]{ (int) (index >>> 32), (int) index };
+    }
+
+    /**
+     * Returns the indices of all occurences of the given item (row by row)
+     * as a list of int[], where [0] contains the column and [1] contains the
+     * row of the item. The list will be empty if the item was not found.
+     * With an item index (see setItemIndex()) this only visits the positions
+     * of the given item, otherwise the whole matrix will be scanned.
+     * @param item
+     * @return the indices of all occurences of the given item
+     */
+    public List<int[]> getAllIndicesOf(final T item) {
+        List<int[]> indices = new ArrayList<>();
+        if (null == item) { return indices; }
+        final long stamp = lockRead();
+        try {
+            if (null == itemIndex) {
+                for (int y = 0 ; y < rows ; y++) {
+                    for (int x = 0 ; x < cols ; x++) {
+                        if (item.equals(get(x, y))) { indices.add(new int[]{ x, y }); }
+                    }
+                }
+            } else {
+                for (long position : itemIndex.getPositions(item)) {
+                    indices.add(new int[]{ physicalCol(MatrixItemIndex.col(position)), physicalRow(MatrixItemIndex.row(position)) });
+                }
             }
+        } finally {
+            unlockRead(stamp);
+        }
+        if (null != itemIndex) {
+            indices.sort((i1, i2) -> i1[1] != i2[1] ? Integer.compare(i1[1], i2[1]) : Integer.compare(i1[0], i2[0]));
         }
-        return new int[]{-1, - 1};
+        return indices;
     }
 
+
     /**
-     * Returns the 2-dimensional array of type <T>
+     * Returns the 2-dimensional array of type <T> ([col][row]).
+     * With StorageMode.COLUMN_ARRAYS this is the backing array of the matrix,
+     * with all other storage modes a copy of the items will be returned.
+     * Pending mirroring will be materialized before.
      * @return the 2-dimensional array of type <T>
      */
-    public T[][] getMatrix() { return matrix; }
+    public T[][] getMatrix() {
+        final long stamp = lockStructure();
+        try {
+            materialize();
+            return storage.toArray();
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+
+    /**
+     * Returns the storage mode that is currently used by the matrix.
+     * With adaptive storage enabled this can change between the dense
+     * mode defined when creating the matrix and StorageMode.SPARSE
+     * @return the storage mode that is currently used by the matrix
+     */
+    public StorageMode getStorageMode() { return storageMode; }
+
+    /**
+     * Returns the number of non null items in the matrix
+     * @return the number of non null items in the matrix
+     */
+    public int getNoOfItems() { return storage.getNoOfItems(); }
 
     /**
      * Returns all items in matrix that are non null as list
@@ -223,18 +398,36 @@ public class ObservableMatrix<T> {
     public List<T> getAllItems() { return stream().filter(Objects::nonNull).collect(Collectors.toList()); }
 
     /**
-     * Returns all items in matrix as stream
+     * Returns all items in matrix as stream (column by column).
+     * In concurrent mode the stream is based on a snapshot of the items.
      * @return all items in matrix as stream
      */
-    public Stream<T> stream() { return Arrays.stream(matrix).flatMap(t -> Arrays.stream(t)); }
-
-    public void reset() {
-        if (rows == -1 || cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        for (int y = 0 ; y < rows ; y++) {
+    public Stream<T> stream() {
+        if (null == lock) { return IntStream.range(0, cols).boxed().flatMap(x -> IntStream.range(0, rows).mapToObj(y -> get(x, y))); }
+        final long stamp = lockRead();
+        try {
+            List<T> items = new ArrayList<>(cols * rows);
             for (int x = 0 ; x < cols ; x++) {
-                matrix[x][y] = null;
+                for (int y = 0 ; y < rows ; y++) { items.add(get(x, y)); }
             }
+            return items.stream();
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    public void reset() {
+        final long stamp = lockStructure();
+        try {
+            if (rows == -1 || cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+            storage.clear();
+            occupancy.clear();
+            if (null != itemIndex) { itemIndex.clear(); }
+            adaptStorage();
+        } finally {
+            unlockStructure(stamp);
         }
+        invalidateJournals();
     }
 
     /**
@@ -243,10 +436,15 @@ public class ObservableMatrix<T> {
      * @return all items in column specified by index as list
      */
     public List<T> getCol(final int col) {
-        if (rows == -1 || cols == -1 || col < 0 || col > cols) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        List<T> c = new ArrayList<>();
-        for (int y = 0 ; y < rows ; y++) { c.add(matrix[col][y]); }
-        return c;
+        final long stamp = lockRead();
+        try {
+            if (rows == -1 || cols == -1 || col < 0 || col >= cols) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+            List<T> c = new ArrayList<>(rows);
+            for (int y = 0 ; y < rows ; y++) { c.add(get(col, y)); }
+            return c;
+        } finally {
+            unlockRead(stamp);
+        }
     }
 
     /**
@@ -255,10 +453,15 @@ public class ObservableMatrix<T> {
      * @return all items in row specified by index as list
      */
     public List<T> getRow(final int row) {
-        if (rows == -1 || cols == -1 || row < 0 || row > rows) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        List<T> r = new ArrayList<>();
-        for (int x = 0 ; x < cols ; x++) { r.add(matrix[x][row]); }
-        return r;
+        final long stamp = lockRead();
+        try {
+            if (rows == -1 || cols == -1 || row < 0 || row >= rows) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+            List<T> r = new ArrayList<>(cols);
+            for (int x = 0 ; x < cols ; x++) { r.add(get(x, row)); }
+            return r;
+        } finally {
+            unlockRead(stamp);
+        }
     }
 
     /**
@@ -266,23 +469,43 @@ public class ObservableMatrix<T> {
      * @param col
      * @return true if all items in given column index equals null
      */
-    public boolean isColEmpty(final int col) {
-        List<T> c = getCol(col);
-        long count = 0;
-        for(T item : c) { if (null != item) { count++; }}
-        return 0 == count;
-    }
+    public boolean isColEmpty(final int col) { return 0 == getNoOfItemsInCol(col); }
 
     /**
      * Returns true if all items in given row index equals null
      * @param row
      * @return true if all items in given row index equals null
      */
-    public boolean isRowEmpty(final int row) {
-        List<T> r = getRow(row);
-        long count = 0;
-        for (T item : r) { if (null != item) { count++; }}
-        return 0 == count;
+    public boolean isRowEmpty(final int row) { return 0 == getNoOfItemsInRow(row); }
+
+    /**
+     * Returns the number of non null items in the given column
+     * @param col
+     * @return the number of non null items in the given column
+     */
+    public int getNoOfItemsInCol(final int col) {
+        final long stamp = lockRead();
+        try {
+            if (col < 0 || col >= cols) { throw new IllegalArgumentException("col cannot be smaller than 0 or larger than cols"); }
+            return occupancy.getColCount(physicalCol(col));
+        } finally {
+            unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of non null items in the given row
+     * @param row
+     * @return the number of non null items in the given row
+     */
+    public int getNoOfItemsInRow(final int row) {
+        final long stamp = lockRead();
+        try {
+            if (row < 0 || row >= rows) { throw new IllegalArgumentException("row cannot be smaller than 0 or larger than rows"); }
+            return occupancy.getRowCount(physicalRow(row));
+        } finally {
+            unlockRead(stamp);
+        }
     }
 
     /**
@@ -301,35 +524,28 @@ public class ObservableMatrix<T> {
      */
     public void setCols(final int cols) { setCols(cols, true); }
     public void setCols(final int cols, final boolean notify) {
-        if (rows == -1 || cols == -1 || this.cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        T[][] oldMatrix = (T[][]) new Object[cols][rows];
-
-        for (int y = 0 ; y < this.rows ; y++) {
-            for (int x = 0 ; x < this.cols ; x++) {
-                oldMatrix[x][y] = matrix[x][y];
-            }
-        }
-        int oldCols = this.cols;
-        this.cols   = cols;
-        matrix = createArray(type, cols, rows);
-        int c;
-        int r  = rows;
-        if (cols > this.cols) {
-            c = oldCols;
-        } else if (cols < this.cols) {
-            c = cols;
-        } else {
-            c = cols;
-        }
-        for (int y = 0 ; y < r ; y++) {
-            for (int x = 0 ; x < c ; x++) {
-                matrix[x][y] = oldMatrix[x][y];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (rows == -1 || cols == -1 || this.cols == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+            materialize();
+            occupancy.resize(cols, rows, storage);
+            storage.resize(cols, rows);
+            if (null != itemIndex) { itemIndex.resize(cols, rows); }
+            if (null != regionIndex) { regionIndex = regionIndex.resize(cols, rows); }
+            this.cols = cols;
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onNoOfColumnsChanged(cols); } }
+        } finally {
+            unlockStructure(stamp);
         }
         if (notify) {
             MColumnsEvent evt = new MColumnsEvent(ObservableMatrix.this, NO_OF_COLUMNS_CHANGED, cols);
             if (null != columnsChangedConsumer) { columnsChangedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onNoOfColumnsChanged(evt.getNoOfColumns()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -340,58 +556,50 @@ public class ObservableMatrix<T> {
      */
     public void addCol(final int at, final Supplier<T> itemSupplier) { addCol(at, itemSupplier, true); }
     public void addCol(final int at, final Supplier<T> itemSupplier, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-
-        cols++;
-
-        T[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < at ; x++) {
-                newMatrix[x][y] = matrix[x][y];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+
+            insertStorageCol(at);
+            for (int y = 0 ; y < rows ; y++) { set(at, y, itemSupplier.get()); }
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onColumnAdded(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
-        for (int y = 0 ; y < rows ; y++) { newMatrix[at][y] = itemSupplier.get(); }
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = at + 1 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x - 1][y];
-            }
-        }
-
-        matrix = newMatrix;
-
         if (notify) {
             MColumnEvent evt = new MColumnEvent(ObservableMatrix.this, COLUMN_ADDED, at);
             if (null != columnAddedConsumer) { columnAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnAdded(evt.getColumn()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
     public void addCol(final int at, final List<T> items) { addCol(at, items, true); }
     public void addCol(final int at, final List<T> items, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-        if (items.size() != rows) { throw new IllegalArgumentException("no of items must be equal to number of rows"); }
-
-        cols++;
-
-        T[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < at ; x++) {
-                newMatrix[x][y] = matrix[x][y];
-            }
-        }
-        for (int y = 0 ; y < rows ; y++) { newMatrix[at][y] = items.get(y); }
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = at + 1 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x - 1][y];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+            if (items.size() != rows) { throw new IllegalArgumentException("no of items must be equal to number of rows"); }
+
+            insertStorageCol(at);
+            for (int y = 0 ; y < rows ; y++) { set(at, y, items.get(y)); }
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onColumnAdded(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
-
-        matrix = newMatrix;
-
         if (notify) {
             MColumnEvent evt = new MColumnEvent(ObservableMatrix.this, COLUMN_ADDED, at);
             if (null != columnAddedConsumer) { columnAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnAdded(evt.getColumn()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -399,28 +607,24 @@ public class ObservableMatrix<T> {
         addNullCol(at, true);
     }
     public void addNullCol(final int at, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-
-        cols++;
-
-        T[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < at ; x++) {
-                newMatrix[x][y] = matrix[x][y];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+
+            insertStorageCol(at);
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onColumnAdded(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
-        for (int y = 0 ; y < rows ; y++) { newMatrix[at][y] = null; }
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = at + 1 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x - 1][y];
-            }
-        }
-
-        matrix = newMatrix;
         if (notify) {
             MColumnEvent evt = new MColumnEvent(ObservableMatrix.this, COLUMN_ADDED, at);
             if (null != columnAddedConsumer) { columnAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnAdded(evt.getColumn()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -430,32 +634,24 @@ public class ObservableMatrix<T> {
      */
     public void removeCol(final int at) { removeCol(at, true); }
     public void removeCol(final int at, final boolean notify) {
-        if (at < 0 || at > cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
-        if (cols <= 1) { throw new IllegalArgumentException("there is just one column in the matrix"); }
-
-        for (int y = 0 ; y < getNoOfRows() ; y++) { matrix[at][y] = null; }
-
-        if (0 == at || (cols - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
-            cols--;
-
-            T[][] newMatrix = createArray(type, cols, rows);
-            for (int y = 0; y < rows; y++) {
-                for (int x = 0; x <= cols; x++) {
-                    if (x < at) {
-                        newMatrix[x][y] = matrix[x][y];
-                    } else if (x == at) {
-
-                    } else {
-                        newMatrix[x - 1][y] = matrix[x][y];
-                    }
-                }
-            }
-            matrix = newMatrix;
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at >= cols) { throw new IllegalArgumentException("index cannot be smaller or larger than cols"); }
+            if (cols <= 1) { throw new IllegalArgumentException("there is just one column in the matrix"); }
+
+            clearOrRemoveCol(at);
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onColumnRemoved(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
         if (notify) {
             MColumnEvent evt = new MColumnEvent(ObservableMatrix.this, COLUMN_REMOVED, at);
             if (null != columnRemovedConsumer) { columnRemovedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnRemoved(evt.getColumn()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -466,58 +662,50 @@ public class ObservableMatrix<T> {
      */
     public void addRow(final int at, final Supplier<T> itemSupplier) { addRow(at, itemSupplier, true); }
     public void addRow(final int at, final Supplier<T> itemSupplier, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-
-        rows++;
-
-        T[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < at ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x][y];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+
+            insertStorageRow(at);
+            for (int x = 0 ; x < cols ; x++) { set(x, at, itemSupplier.get()); }
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onRowAdded(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
-        for (int x = 0 ; x < cols ; x++) { newMatrix[x][at] = itemSupplier.get(); }
-        for (int y = at + 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x][y - 1];
-            }
-        }
-
-        matrix = newMatrix;
-
         if (notify) {
             MRowEvent evt = new MRowEvent(ObservableMatrix.this, ROW_ADDED, at);
             if (null != rowAddedConsumer) { rowAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowAdded(evt.getRow()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
     public void addRow(final int at, final List<T> items) { addRow(at, items, true); }
     public void addRow(final int at, final List<T> items, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-        if (items.size() != cols) { throw new IllegalArgumentException("now of items must be equal to number of columns"); }
-
-        rows++;
-
-        T[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < at ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x][y];
-            }
-        }
-        for (int x = 0 ; x < cols ; x++) { newMatrix[x][at] = items.get(x); }
-        for (int y = at + 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x][y - 1];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+            if (items.size() != cols) { throw new IllegalArgumentException("now of items must be equal to number of columns"); }
+
+            insertStorageRow(at);
+            for (int x = 0 ; x < cols ; x++) { set(x, at, items.get(x)); }
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onRowAdded(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
-
-        matrix = newMatrix;
-
         if (notify) {
             MRowEvent evt = new MRowEvent(ObservableMatrix.this, ROW_ADDED, at);
             if (null != rowAddedConsumer) { rowAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowAdded(evt.getRow()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -525,28 +713,24 @@ public class ObservableMatrix<T> {
         addNullRow(at, true);
     }
     public void addNullRow(final int at, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-
-        rows++;
-
-        T[][] newMatrix = createArray(type, cols, rows);
-        for (int y = 0 ; y < at ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x][y];
-            }
-        }
-        for (int x = 0 ; x < cols ; x++) { newMatrix[x][at] = null; }
-        for (int y = at + 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                newMatrix[x][y] = matrix[x][y - 1];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+
+            insertStorageRow(at);
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onRowAdded(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
-
-        matrix = newMatrix;
         if (notify) {
             MRowEvent evt = new MRowEvent(ObservableMatrix.this, ROW_ADDED, at);
             if (null != rowAddedConsumer) { rowAddedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowAdded(evt.getRow()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -556,35 +740,24 @@ public class ObservableMatrix<T> {
      */
     public void removeRow(final int at) { removeRow(at, true); }
     public void removeRow(final int at, final boolean notify) {
-        if (at < 0 || at > rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
-        if (rows <= 1) { throw new IllegalArgumentException("there is just one row in the matrix"); }
-
-        for (int x = 0 ; x < getNoOfCols() ; x++) { matrix[x][at] = null; }
-
-        if (0 == at || (rows - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
-            rows--;
-
-            T[][] newMatrix = createArray(type, cols, rows);
-            for (int y = 0; y <= rows; y++) {
-                if (y < at) {
-                    for (int x = 0; x < cols; x++) {
-                        newMatrix[x][y] = matrix[x][y];
-                    }
-                } else if (y == at) {
-
-                } else {
-                    for (int x = 0; x < cols; x++) {
-                        newMatrix[x][y - 1] = matrix[x][y];
-                    }
-                }
-            }
-            matrix = newMatrix;
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (at < 0 || at >= rows) { throw new IllegalArgumentException("index cannot be smaller or larger than rows"); }
+            if (rows <= 1) { throw new IllegalArgumentException("there is just one row in the matrix"); }
+
+            clearOrRemoveRow(at);
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onRowRemoved(at); } }
+        } finally {
+            unlockStructure(stamp);
         }
-
         if (notify) {
             MRowEvent evt = new MRowEvent(ObservableMatrix.this, ROW_REMOVED, at);
             if (null != rowRemovedConsumer) { rowRemovedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowRemoved(evt.getRow()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
@@ -604,159 +777,768 @@ public class ObservableMatrix<T> {
      */
     public void setRows(final int rows) { setRows(rows, true); }
     public void setRows(final int rows, final boolean notify) {
-        if (rows == -1 || cols == -1 || this.rows == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
-        T[][] oldMatrix = (T[][]) new Object[cols][rows];
-        for (int y = 0 ; y < this.rows ; y++) {
-            for (int x = 0 ; x < this.cols ; x++) {
-                oldMatrix[x][y] = matrix[x][y];
-            }
-        }
-        int oldRows = this.rows;
-        this.rows   = rows;
-        matrix = createArray(type, cols, rows);
-
-        int c  = cols;
-        int r;
-        if (rows > this.rows) {
-            r = oldRows;
-        } else if (rows < this.rows) {
-            r = rows;
-        } else {
-            r = rows;
-        }
-        for (int y = 0 ; y < r ; y++) {
-            for (int x = 0 ; x < c ; x++) {
-                matrix[x][y] = oldMatrix[x][y];
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            if (rows == -1 || cols == -1 || this.rows == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 0"); }
+            materialize();
+            occupancy.resize(cols, rows, storage);
+            storage.resize(cols, rows);
+            if (null != itemIndex) { itemIndex.resize(cols, rows); }
+            if (null != regionIndex) { regionIndex = regionIndex.resize(cols, rows); }
+            this.rows = rows;
+            adaptStorage();
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onNoOfRowsChanged(rows); } }
+        } finally {
+            unlockStructure(stamp);
         }
         if (notify) {
             MRowsEvent evt = new MRowsEvent(ObservableMatrix.this, NO_OF_ROWS_CHANGED, rows);
             if (null != rowsChangedConsumer) { rowsChangedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onNoOfRowsChanged(evt.getNoOfRows()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
+        }
+    }
+
+    /**
+     * Sets the number of columns and rows in the matrix with
+     * only one reallocation of the storage.
+     * Existing entries will be copied to the new matrix.
+     * All items outside of the new matrix will be lost.
+     * Fires NO_OF_COLUMNS_CHANGED and/or NO_OF_ROWS_CHANGED
+     * if the number of columns and/or rows changed.
+     * @param cols
+     * @param rows
+     */
+    public void setSize(final int cols, final int rows) { setSize(cols, rows, true); }
+    public void setSize(final int cols, final int rows, final boolean notify) {
+        flushBeforeStructuralChange();
+        final boolean colsChanged;
+        final boolean rowsChanged;
+        final long    stamp = lockStructure();
+        try {
+            if (rows < 1 || cols < 1 || this.cols == -1 || this.rows == -1) { throw new IllegalArgumentException("cols/rows cannot be smaller 1"); }
+            colsChanged = cols != this.cols;
+            rowsChanged = rows != this.rows;
+            materialize();
+            occupancy.resize(cols, rows, storage);
+            storage.resize(cols, rows);
+            if (null != itemIndex) { itemIndex.resize(cols, rows); }
+            if (null != regionIndex) { regionIndex = regionIndex.resize(cols, rows); }
+            this.cols = cols;
+            this.rows = rows;
+            adaptStorage();
+            if (notify && colsChanged) { for (MatrixJournal<T> journal : journals) { journal.onNoOfColumnsChanged(cols); } }
+            if (notify && rowsChanged) { for (MatrixJournal<T> journal : journals) { journal.onNoOfRowsChanged(rows); } }
+        } finally {
+            unlockStructure(stamp);
+        }
+        if (notify) {
+            if (colsChanged) {
+                MColumnsEvent evt = new MColumnsEvent(ObservableMatrix.this, NO_OF_COLUMNS_CHANGED, cols);
+                if (null != columnsChangedConsumer) { columnsChangedConsumer.accept(evt); }
+                for (MChangeListener<T> listener : changeListeners) { listener.onNoOfColumnsChanged(evt.getNoOfColumns()); }
+                fireEvent(evt);
+            }
+            if (rowsChanged) {
+                MRowsEvent evt = new MRowsEvent(ObservableMatrix.this, NO_OF_ROWS_CHANGED, rows);
+                if (null != rowsChangedConsumer) { rowsChangedConsumer.accept(evt); }
+                for (MChangeListener<T> listener : changeListeners) { listener.onNoOfRowsChanged(evt.getNoOfRows()); }
+                fireEvent(evt);
+            }
+        } else {
+            invalidateJournals();
+        }
+    }
+
+    /**
+     * Makes sure that the matrix can grow to the given number of columns
+     * and rows (e.g. by addCol(), addRow(), setCols() or setRows()) without
+     * reallocating the storage. The size of the matrix will not change.
+     * @param cols minimum number of columns
+     * @param rows minimum number of rows
+     */
+    public void ensureCapacity(final int cols, final int rows) {
+        final long stamp = lockStructure();
+        try {
+            if (rows < 1 || cols < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller 1"); }
+            storage.ensureCapacity(cols, rows);
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+
+    /**
+     * Releases the spare capacity that was reserved by ensureCapacity() or
+     * by growing the matrix, so that the storage only uses the memory
+     * that is needed for the current number of columns and rows
+     */
+    public void trimToSize() {
+        final long stamp = lockStructure();
+        try {
+            storage.trimToSize();
+        } finally {
+            unlockStructure(stamp);
         }
     }
 
     public List<List<T>> getAllColumns() {
-        List<List<T>> columns = new ArrayList<>();
-        for (int i = 0; i < getNoOfCols() ; i++) { columns.add(getCol(i)); }
-        return columns;
+        final long stamp = lockRead();
+        try {
+            List<List<T>> columns = new ArrayList<>();
+            for (int x = 0; x < cols ; x++) {
+                List<T> c = new ArrayList<>(rows);
+                for (int y = 0 ; y < rows ; y++) { c.add(get(x, y)); }
+                columns.add(c);
+            }
+            return columns;
+        } finally {
+            unlockRead(stamp);
+        }
     }
     public List<Integer> getAllEmptyColumns() {
-        List<Integer> emptyColumns = new ArrayList<>();
-        for (int x = 0; x < getNoOfCols() ; x++) {
-            if (getCol(x).stream().filter(Objects::nonNull).count() == 0) { emptyColumns.add(x); }
+        final long stamp = lockRead();
+        try {
+            List<Integer> emptyColumns = new ArrayList<>();
+            for (int col = occupancy.nextEmptyCol(0) ; col < cols ; col = occupancy.nextEmptyCol(col + 1)) { emptyColumns.add(physicalCol(col)); }
+            if (colsReversed) { Collections.reverse(emptyColumns); }
+            return emptyColumns;
+        } finally {
+            unlockRead(stamp);
         }
-        return emptyColumns;
     }
 
     public List<List<T>> getAllRows() {
-        List<List<T>> rows = new ArrayList<>();
-        for (int i = 0; i < getNoOfRows() ; i++) { rows.add(getRow(i)); }
-        return rows;
+        final long stamp = lockRead();
+        try {
+            List<List<T>> rows = new ArrayList<>();
+            for (int y = 0; y < this.rows ; y++) {
+                List<T> r = new ArrayList<>(cols);
+                for (int x = 0 ; x < cols ; x++) { r.add(get(x, y)); }
+                rows.add(r);
+            }
+            return rows;
+        } finally {
+            unlockRead(stamp);
+        }
     }
     public List<Integer> getAllEmptyRows() {
-        List<Integer> emptyRows = new ArrayList<>();
-        for (int y = 0; y < getNoOfRows() ; y++) {
-            if (getRow(y).stream().filter(Objects::nonNull).count() == 0) { emptyRows.add(y); }
+        final long stamp = lockRead();
+        try {
+            List<Integer> emptyRows = new ArrayList<>();
+            for (int row = occupancy.nextEmptyRow(0) ; row < rows ; row = occupancy.nextEmptyRow(row + 1)) { emptyRows.add(physicalRow(row)); }
+            if (rowsReversed) { Collections.reverse(emptyRows); }
+            return emptyRows;
+        } finally {
+            unlockRead(stamp);
         }
-        return emptyRows;
     }
 
+    /**
+     * Mirrors the columns of the matrix in O(1). Only the order in which
+     * the storage is accessed will be reversed, call materialize() if the
+     * physical layout of the storage should also be mirrored.
+     */
     public void mirrorColumns() { mirrorColumns(true); }
     public void mirrorColumns(final boolean notify) {
-        for(int i = 0; i < (matrix.length/2); i++) {
-            T[] temp = matrix[i];
-            matrix[i] = matrix[matrix.length - i - 1];
-            matrix[matrix.length - i - 1] = temp;
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            colsReversed = !colsReversed;
+            colsMirrored = !colsMirrored;
+            if (null != regionIndex) { regionIndex = regionIndex.mirrorCols(cols); }
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onColumnsMirrored(cols); } }
+        } finally {
+            unlockStructure(stamp);
         }
-        colsMirrored = !colsMirrored;
         if (notify) {
             MColumnsEvent evt = new MColumnsEvent(ObservableMatrix.this, COLUMNS_MIRRORED, cols);
             if (null != columnsMirroredConsumer) { columnsMirroredConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnsMirrored(evt.getNoOfColumns()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
+    /**
+     * Mirrors the rows of the matrix in O(1). Only the order in which
+     * the storage is accessed will be reversed, call materialize() if the
+     * physical layout of the storage should also be mirrored.
+     */
     public void mirrorRows() { mirrorRows(true); }
     public void mirrorRows(final boolean notify) {
-        for (int j = 0; j < matrix.length; ++j) {
-            T[] row = matrix[j];
-            for(int i = 0; i < (row.length/2); i++) {
-                T temp = row[i];
-                row[i] = matrix[j][row.length - i - 1];
-                row[row.length - i - 1] = temp;
-            }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            rowsReversed = !rowsReversed;
+            rowsMirrored = !rowsMirrored;
+            if (null != regionIndex) { regionIndex = regionIndex.mirrorRows(rows); }
+            if (notify) { for (MatrixJournal<T> journal : journals) { journal.onRowsMirrored(rows); } }
+        } finally {
+            unlockStructure(stamp);
         }
-        rowsMirrored = !rowsMirrored;
         if (notify) {
             MRowsEvent evt = new MRowsEvent(ObservableMatrix.this, ROWS_MIRRORED, rows);
             if (null != rowsMirroredConsumer) { rowsMirroredConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowsMirrored(evt.getNoOfRows()); }
             fireEvent(evt);
+        } else {
+            invalidateJournals();
         }
     }
 
     public boolean getColsMirrored() { return colsMirrored; }
     public boolean getRowsMirrored() { return rowsMirrored; }
 
+    /**
+     * Applies pending mirroring to the storage so that its physical layout
+     * matches the logical one (e.g. before working on the backing array).
+     * This is O(n) and does not fire any events because the items at each
+     * position of the matrix stay the same.
+     */
+    public void materialize() {
+        final long stamp = lockStructure();
+        try {
+            if (colsReversed) {
+                storage.mirrorCols();
+                occupancy.mirrorCols();
+                if (null != itemIndex) { itemIndex.mirrorCols(cols); }
+                colsReversed = false;
+            }
+            if (rowsReversed) {
+                storage.mirrorRows();
+                occupancy.mirrorRows();
+                if (null != itemIndex) { itemIndex.mirrorRows(rows); }
+                rowsReversed = false;
+            }
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+
+    /**
+     * Returns a view on the matrix where column x is row x of the matrix.
+     * No items will be copied, reading and writing the view reads and
+     * writes this matrix and the view follows the size of this matrix.
+     * @return a transposed view on the matrix
+     */
+    public MatrixView<T> transpose() { return new MatrixView<>(ObservableMatrix.this, true); }
+
+    /**
+     * Returns a view on the given rectangle of the matrix without copying any items
+     * @param x    column of the upper left corner
+     * @param y    row of the upper left corner
+     * @param cols number of columns of the view
+     * @param rows number of rows of the view
+     * @return a view on the given rectangle of the matrix
+     */
+    public MatrixView<T> subMatrix(final int x, final int y, final int cols, final int rows) { return stridedView(x, y, cols, rows, 1, 1); }
+
+    /**
+     * Returns a view on every stepX-th column and every stepY-th row of the
+     * matrix starting at the given position without copying any items
+     * @param x     column of the first item
+     * @param y     row of the first item
+     * @param cols  number of columns of the view
+     * @param rows  number of rows of the view
+     * @param stepX distance between two columns of the view in the matrix
+     * @param stepY distance between two rows of the view in the matrix
+     * @return a view on every stepX-th column and every stepY-th row of the matrix
+     */
+    public MatrixView<T> stridedView(final int x, final int y, final int cols, final int rows, final int stepX, final int stepY) {
+        MatrixView.checkView(x, y, cols, rows, stepX, stepY, this.cols, this.rows);
+        return new MatrixView<>(ObservableMatrix.this, x, y, stepX, stepY, false, cols, rows);
+    }
+
     public boolean getResizeMatrixWhenInnerRowOrColIsRemoved() { return resizeMatrixWhenInnerRowOrColIsRemoved; }
     public void setResizeMatrixWhenInnerRowOrColIsRemoved(final boolean resize) { resizeMatrixWhenInnerRowOrColIsRemoved = resize; }
 
+    public boolean isAdaptiveStorage() { return adaptiveStorage; }
+    /**
+     * If adaptive storage is enabled the matrix will switch to StorageMode.SPARSE
+     * when the ratio of non null items to cells drops below the sparseFillRatio and
+     * back to the dense storage mode when it rises above the denseFillRatio.
+     * The gap between both ratios avoids switching back and forth.
+     * Switching the storage does not fire any events.
+     * @param adaptive
+     */
+    public void setAdaptiveStorage(final boolean adaptive) { setAdaptiveStorage(adaptive, DEFAULT_SPARSE_FILL_RATIO, DEFAULT_DENSE_FILL_RATIO); }
+    public void setAdaptiveStorage(final boolean adaptive, final double sparseFillRatio, final double denseFillRatio) {
+        final long stamp = lockStructure();
+        try {
+            if (sparseFillRatio < 0 || denseFillRatio > 1 || sparseFillRatio >= denseFillRatio) { throw new IllegalArgumentException("sparseFillRatio must be smaller than denseFillRatio and both must be in the range of 0 - 1"); }
+            this.adaptiveStorage = adaptive;
+            this.sparseFillRatio = sparseFillRatio;
+            this.denseFillRatio  = denseFillRatio;
+            adaptStorage();
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+    public boolean isItemIndex() { return null != itemIndex; }
+    /**
+     * If the item index is enabled the matrix keeps a hash index from each
+     * non null item to its positions in the matrix. This makes contains(),
+     * getIndicesOf(), getAllIndicesOf() and removeItem() O(1) (per occurence
+     * of the item) but costs memory, a hash lookup on every write and
+     * O(number of items) on each added or removed column or row.
+     * The items must implement hashCode() consistent with equals().
+     * @param itemIndex
+     */
+    public void setItemIndex(final boolean itemIndex) {
+        final long stamp = lockStructure();
+        try {
+            if (itemIndex == isItemIndex()) { return; }
+            this.itemIndex = itemIndex ? new MatrixItemIndex(storage) : null;
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+
+    public double getSparseFillRatio() { return sparseFillRatio; }
+    public double getDenseFillRatio() { return denseFillRatio; }
+
+    public boolean isConcurrent() { return null != lock; }
+    /**
+     * If the concurrent mode is enabled the matrix can be read and written by
+     * multiple threads. getItemAt() reads optimistically without locking and
+     * only retries with a read lock if a structural change interfered.
+     * setItemAt() only locks a stripe of cells as long as the cell stays
+     * non null or stays null, all other writes and all structural changes
+     * (adding, removing, resizing, mirroring) lock the whole matrix.
+     * Events will be fired after the lock was released.
+     * The mode has to be set before the matrix is shared between threads.
+     * @param concurrent
+     */
+    public void setConcurrent(final boolean concurrent) {
+        if (concurrent == isConcurrent()) { return; }
+        if (concurrent) {
+            stripes = new Object[NO_OF_STRIPES];
+            for (int i = 0 ; i < NO_OF_STRIPES ; i++) { stripes[i] = new Object(); }
+            lock = new StampedLock();
+        } else {
+            lock    = null;
+            stripes = null;
+        }
+    }
+
+    /**
+     * Starts a batch update. Until the matching endUpdate() the item changes
+     * will not be fired as MItemEvents but recorded and fired as one
+     * MBatchEvent at the end of the batch. Changes that are made with
+     * notify = false will not be recorded. If the structure of the matrix
+     * changes during the batch, the changes recorded so far will be fired
+     * before the structural change is made so that the positions of
+     * the changes are still valid for the observers.
+     * Batches can be nested, only the outermost batch fires the event.
+     */
+    public void beginUpdate() {
+        synchronized (batchLock) {
+            if (0 == batchDepth) { batch = new MatrixBatch(); }
+            batchDepth++;
+        }
+    }
+
+    /**
+     * Ends a batch update that was started with beginUpdate() and fires
+     * the recorded changes as one MBatchEvent if this was the outermost batch
+     */
+    public void endUpdate() {
+        final MatrixBatch finishedBatch;
+        synchronized (batchLock) {
+            if (0 == batchDepth) { throw new IllegalStateException("endUpdate() called without beginUpdate()"); }
+            batchDepth--;
+            if (0 != batchDepth) { return; }
+            finishedBatch = batch;
+            batch         = null;
+        }
+        fireBatchEvent(finishedBatch);
+        flushDirtyRegions();
+    }
+
+    /**
+     * Runs the given action in a batch update (see beginUpdate())
+     * @param action
+     */
+    public void update(final Consumer<ObservableMatrix<T>> action) {
+        beginUpdate();
+        try {
+            action.accept(this);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    public boolean isUpdating() { return 0 != batchDepth; }
+
+    public boolean isDirtyRegionTracking() { return null != dirtyRegions; }
+    /**
+     * If dirty region tracking is enabled, the positions of all added, removed
+     * and changed items (that are not set with notify = false) will be collected
+     * in a few rectangles. Adjacent changes will be merged into one rectangle.
+     * The rectangles will be fired as MRegionEvents by flushDirtyRegions(),
+     * at the end of a batch update and before a structural change of the matrix.
+     * The MItemEvents will still be fired, use a batch update to avoid them.
+     * @param dirtyRegionTracking
+     */
+    public void setDirtyRegionTracking(final boolean dirtyRegionTracking) {
+        if (dirtyRegionTracking == isDirtyRegionTracking()) { return; }
+        dirtyRegions = dirtyRegionTracking ? new MatrixDirtyRegions() : null;
+    }
+
+    /**
+     * Fires one MRegionEvent for each rectangle in which items changed
+     * since the last flush
+     */
+    public void flushDirtyRegions() {
+        final MatrixDirtyRegions dirtyRegions = this.dirtyRegions;
+        if (null == dirtyRegions || dirtyRegions.isEmpty()) { return; }
+        for (int[] region : dirtyRegions.drain()) {
+            MRegionEvent evt = new MRegionEvent(ObservableMatrix.this, MRegionEvent.REGION_CHANGED, region[0], region[1], region[2] - region[0] + 1, region[3] - region[1] + 1);
+            if (null != regionChangedConsumer) { regionChangedConsumer.accept(evt); }
+            fireEvent(evt);
+        }
+    }
+
 
     // ******************** Private methods ***********************************
+    private int physicalCol(final int x) { return colsReversed ? cols - 1 - x : x; }
+
+    private int physicalRow(final int y) { return rowsReversed ? rows - 1 - y : y; }
+
+    private T get(final int x, final int y) { return storage.get(physicalCol(x), physicalRow(y)); }
+
     /**
-     * Method to reduce matrix size in case the first column is empty (all items == null)
+     * Sets the item at the given position and updates the occupancy
+     * @param x
+     * @param y
+     * @param item
+     * @return the item that was replaced
      */
-    private void shiftLeft() {
+    private T set(final int x, final int y, final T item) {
+        final int col     = physicalCol(x);
+        final int row     = physicalRow(y);
+        final T   oldItem = storage.get(col, row);
+        storage.set(col, row, item);
+        occupancy.update(col, row, null != oldItem, null != item);
+        if (null != itemIndex) { itemIndex.update(col, row, oldItem, item); }
+        return oldItem;
+    }
+
+    private void insertStorageCol(final int at) {
+        final int col = colsReversed ? cols - at : at;
+        storage.insertCol(col);
+        occupancy.insertCol(col);
+        if (null != itemIndex) { itemIndex.insertCol(col); }
+        if (null != regionIndex) { regionIndex = regionIndex.insertCol(at); }
+        cols++;
+    }
+
+    private void removeStorageCol(final int at) {
+        final int col = physicalCol(at);
+        occupancy.removeCol(col, storage);
+        storage.removeCol(col);
+        if (null != itemIndex) { itemIndex.removeCol(col); }
+        if (null != regionIndex) { regionIndex = regionIndex.removeCol(at); }
+        cols--;
+    }
+
+    private void insertStorageRow(final int at) {
+        final int row = rowsReversed ? rows - at : at;
+        storage.insertRow(row);
+        occupancy.insertRow(row);
+        if (null != itemIndex) { itemIndex.insertRow(row); }
+        if (null != regionIndex) { regionIndex = regionIndex.insertRow(at); }
+        rows++;
+    }
+
+    private void removeStorageRow(final int at) {
+        final int row = physicalRow(at);
+        occupancy.removeRow(row, storage);
+        storage.removeRow(row);
+        if (null != itemIndex) { itemIndex.removeRow(row); }
+        if (null != regionIndex) { regionIndex = regionIndex.removeRow(at); }
+        rows--;
+    }
+
+    /**
+     * Returns the position of the first occurence of the given item (row by row)
+     * packed as in MatrixStorage.indexOf(). With an item index only the positions
+     * of the item will be compared, otherwise if the storage is accessed in
+     * reversed order the matrix will be scanned in its logical order
+     * @param item
+     * @return the position of the first occurence of the given item or -1
+     */
+    private long indexOf(final T item) {
+        if (null != itemIndex) {
+            long index = -1;
+            int  col   = Integer.MAX_VALUE;
+            int  row   = Integer.MAX_VALUE;
+            for (long position : itemIndex.getPositions(item)) {
+                final int x = physicalCol(MatrixItemIndex.col(position));
+                final int y = physicalRow(MatrixItemIndex.row(position));
+                if (y < row || (y == row && x < col)) {
+                    col   = x;
+                    row   = y;
+                    index = MatrixItemIndex.key(x, y);
+                }
+            }
+            return index;
+        }
+        if (!colsReversed && !rowsReversed) { return storage.indexOf(item); }
+        if (null == item) { return -1; }
         for (int y = 0 ; y < rows ; y++) {
-            for (int x = 1 ; x < cols ; x++) {
-                matrix[x - 1][y] = matrix[x][y];
+            for (int x = 0 ; x < cols ; x++) {
+                if (item.equals(get(x, y))) { return ((long) x << 32) | y; }
             }
         }
+        return -1;
     }
 
     /**
-     * Method to reduce matrix size in case the first row is empty (all items == null)
+     * Switches between the dense and the sparse storage if adaptive storage is
+     * enabled and the fill ratio of the matrix crossed one of the thresholds
      */
-    private void shiftUp() {
-        for (int y = 1 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                matrix[x][y - 1] = matrix[x][y];
-            }
+    private void adaptStorage() {
+        if (!adaptiveStorage) { return; }
+        final double fillRatio = storage.getNoOfItems() / ((double) cols * rows);
+        if (StorageMode.SPARSE == storageMode) {
+            if (fillRatio > denseFillRatio) { switchStorage(denseStorageMode); }
+        } else if (fillRatio < sparseFillRatio) {
+            switchStorage(StorageMode.SPARSE);
         }
     }
 
+    private void switchStorage(final StorageMode storageMode) {
+        MatrixStorage<T> newStorage = storageMode.createStorage(type, cols, rows);
+        storage.forEachItem(newStorage::set);
+        this.storage     = newStorage;
+        this.storageMode = storageMode;
+    }
+
     /**
-     * Returns a 2-dimensional array of the given type <T> and size
-     * @param type Class of generic type
-     * @param cols Number of columns for the matrix
-     * @param rows Number of rows for the matrix
-     * @param <T>
-     * @return a 2-dimensional array of the given type <T> and size
+     * Removes the given column if it is the first or the last column or if the
+     * matrix should be resized, otherwise only the items of the column will be set to null
+     * @param at
      */
-    private static <T> T[][] createArray(final Class type, final int cols, final int rows) {
-        if (null == type) { throw new IllegalArgumentException("type cannot be null"); }
-        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
-        return (T[][]) Array.newInstance(type, cols, rows);
+    private void clearOrRemoveCol(final int at) {
+        if (0 == at || (cols - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+            removeStorageCol(at);
+        } else {
+            for (int y = 0 ; y < rows ; y++) { set(at, y, null); }
+        }
+        adaptStorage();
+    }
+
+    private void clearOrRemoveRow(final int at) {
+        if (0 == at || (rows - 1) == at || resizeMatrixWhenInnerRowOrColIsRemoved) {
+            removeStorageRow(at);
+        } else {
+            for (int x = 0 ; x < cols ; x++) { set(x, at, null); }
+        }
+        adaptStorage();
+    }
+
+    /**
+     * Removes the column or row of a removed item if it is empty now. This runs
+     * after the ITEM_REMOVED event was fired, so that the event still refers
+     * to the layout in which the item was removed. The running batch and the
+     * dirty regions are only flushed if a column or row will be removed, so
+     * that removals without a structural change are still coalesced.
+     * @param removedItemCol
+     * @param removedItemRow
+     * @return REMOVED_COL, REMOVED_ROW or REMOVED_NONE
+     */
+    private int removeEmptyColumnOrRow(final int removedItemCol, final int removedItemRow, final boolean notify) {
+        if (REMOVED_NONE == findEmptyColumnOrRow(removedItemCol, removedItemRow)) { return REMOVED_NONE; }
+        flushBeforeStructuralChange();
+        final long stamp = lockStructure();
+        try {
+            // Check again because the matrix might have been changed while flushing
+            switch (findEmptyColumnOrRow(removedItemCol, removedItemRow)) {
+                case REMOVED_COL:
+                    clearOrRemoveCol(removedItemCol);
+                    if (notify) { for (MatrixJournal<T> journal : journals) { journal.onColumnRemoved(removedItemCol); } }
+                    return REMOVED_COL;
+                case REMOVED_ROW:
+                    clearOrRemoveRow(removedItemRow);
+                    if (notify) { for (MatrixJournal<T> journal : journals) { journal.onRowRemoved(removedItemRow); } }
+                    return REMOVED_ROW;
+                default         : return REMOVED_NONE;
+            }
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+
+    private int findEmptyColumnOrRow(final int removedItemCol, final int removedItemRow) {
+        final long stamp = lockRead();
+        try {
+            if (removedItemCol < cols && cols > 1 && 0 == occupancy.getColCount(physicalCol(removedItemCol))) {
+                return REMOVED_COL;
+            } else if (removedItemRow < rows && rows > 1 && 0 == occupancy.getRowCount(physicalRow(removedItemRow))) {
+                return REMOVED_ROW;
+            }
+            return REMOVED_NONE;
+        } finally {
+            unlockRead(stamp);
+        }
     }
 
-    private void checkForRemovedColumnsAndRows(final int removedItemCol, final int removedItemRow, final boolean notify) {
-        int nullItemCounter = 0;
-        for (int r = 0 ; r < rows ; r++) {
-            if (null == getItemAt(removedItemCol, r)) { nullItemCounter++; }
+    private void fireRemovedColumnOrRow(final int removed, final int removedItemCol, final int removedItemRow) {
+        if (REMOVED_COL == removed) {
+            MColumnEvent evt = new MColumnEvent(ObservableMatrix.this, COLUMN_REMOVED, removedItemCol);
+            if (null != columnRemovedConsumer) { columnRemovedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onColumnRemoved(evt.getColumn()); }
+            fireEvent(evt);
+        } else if (REMOVED_ROW == removed) {
+            MRowEvent evt = new MRowEvent(ObservableMatrix.this, ROW_REMOVED, removedItemRow);
+            if (null != rowRemovedConsumer) { rowRemovedConsumer.accept(evt); }
+            for (MChangeListener<T> listener : changeListeners) { listener.onRowRemoved(evt.getRow()); }
+            fireEvent(evt);
         }
-        if (nullItemCounter == rows) {
-            removeCol(removedItemCol, notify);
-            return;
+    }
+
+    /**
+     * Changes that are not passed to the change listeners (reset(), notify = false)
+     * can not be recorded, so the journals must copy the matrix to catch up
+     */
+    private void invalidateJournals() {
+        for (MatrixJournal<T> journal : journals) { journal.invalidate(); }
+    }
+
+    /**
+     * Records the given item change in the journals. It must be called while
+     * the written cell is still locked, so that the journals get the
+     * changes in the order they were applied to the storage.
+     */
+    private void journalItemChange(final int x, final int y, final T oldItem, final T item) {
+        if (null == oldItem && null == item) { return; }
+        for (MatrixJournal<T> journal : journals) { journal.onItemChanged(x, y, oldItem, item); }
+    }
+
+    private void markDirty(final int x, final int y) {
+        final MatrixDirtyRegions dirtyRegions = this.dirtyRegions;
+        if (null != dirtyRegions) { dirtyRegions.add(x, y); }
+    }
+
+    /**
+     * Records the given change if a batch update is running
+     * @return true if the change was recorded and must not be fired
+     */
+    private boolean recordChange(final int x, final int y, final T oldItem, final T item) {
+        if (0 == batchDepth) { return false; }
+        synchronized (batchLock) {
+            if (0 == batchDepth) { return false; }
+            batch.add(x, y, oldItem, item);
+            return true;
         }
+    }
 
-        nullItemCounter = 0;
-        for (int c = 0 ; c < cols ; c++) {
-            if (null == getItemAt(c, removedItemRow)) { nullItemCounter++; }
+    /**
+     * Fires the changes that were recorded so far in a running batch update
+     * and the dirty regions before the storage and the region index change, so that they are fired
+     * with the layout they were recorded in and before the consumers and
+     * listeners of the structural change are called. Structural changes that
+     * are nested in another one (e.g. removing an emptied column) are skipped
+     * because the outer one already flushed. Removing an item only flushes if
+     * its column or row will be removed, so that the dirty regions of plain
+     * removals can still be merged.
+     */
+    private void flushBeforeStructuralChange() {
+        if (null != lockOwner && Thread.currentThread() == lockOwner) { return; }
+        if (0 != batchDepth) { flushBatch(); }
+        if (null != dirtyRegions) { flushDirtyRegions(); }
+    }
+
+    /**
+     * Fires the changes that were recorded so far in the running batch update
+     */
+    private void flushBatch() {
+        final MatrixBatch recordedBatch;
+        synchronized (batchLock) {
+            if (0 == batchDepth || batch.isEmpty()) { return; }
+            recordedBatch = batch;
+            batch         = new MatrixBatch();
         }
-        if (nullItemCounter == cols) {
-            removeRow(removedItemRow, notify);
-            return;
+        fireBatchEvent(recordedBatch);
+    }
+
+    private void fireBatchEvent(final MatrixBatch batch) {
+        if (batch.isEmpty()) { return; }
+        MBatchEvent<T> evt = batch.toEvent(ObservableMatrix.this);
+        if (null != batchUpdatedConsumer) { batchUpdatedConsumer.accept(evt); }
+        fireEvent(evt);
+    }
+
+    private boolean hasRegionSubscriptionsAt(final int x, final int y) {
+        final MatrixRegionIndex regionIndex = this.regionIndex;
+        return null != regionIndex && regionIndex.hasSubscriptionsAt(x, y);
+    }
+
+    /**
+     * Informs the change listeners and fires an MItemEvent, the event
+     * will only be created if there is a consumer, observer or region subscription for it
+     * @param x
+     * @param y
+     * @param oldItem
+     * @param item
+     */
+    private void fireItemEvent(final int x, final int y, final T oldItem, final T item) {
+        if (null == oldItem && null == item) { return; }
+        markDirty(x, y);
+        for (MChangeListener<T> listener : changeListeners) { listener.onItemChanged(x, y, oldItem, item); }
+        if (recordChange(x, y, oldItem, item)) { return; }
+        final MEventType<MItemEvent<?>> type;
+        final Consumer<MItemEvent<T>>   consumer;
+        if (null == oldItem) {
+            type     = ITEM_ADDED;
+            consumer = itemAddedConsumer;
+        } else if (null == item) {
+            type     = ITEM_REMOVED;
+            consumer = itemRemovedConsumer;
+        } else {
+            type     = ITEM_CHANGED;
+            consumer = itemChangedConsumer;
         }
+        if (null == consumer && !dispatcher.hasObservers(type) && !hasRegionSubscriptionsAt(x, y)) { return; }
+        MItemEvent<T> evt = new MItemEvent<>(ObservableMatrix.this, type, x, y, oldItem, item);
+        if (null != consumer) { consumer.accept(evt); }
+        fireEvent(evt);
+    }
+
+    /**
+     * Locks the matrix exclusively in concurrent mode.
+     * The lock is reentrant for the thread that holds it, so that
+     * public methods can call each other while holding the lock.
+     * @return the stamp to unlock or 0 if nothing was locked
+     */
+    private long lockStructure() {
+        final StampedLock lock = this.lock;
+        if (null == lock || Thread.currentThread() == lockOwner) { return 0; }
+        final long stamp = lock.writeLock();
+        lockOwner = Thread.currentThread();
+        return stamp;
+    }
+
+    private void unlockStructure(final long stamp) {
+        if (0 == stamp) { return; }
+        lockOwner = null;
+        lock.unlockWrite(stamp);
+    }
+
+    private long lockRead() {
+        final StampedLock lock = this.lock;
+        if (null == lock || Thread.currentThread() == lockOwner) { return 0; }
+        return lock.readLock();
+    }
+
+    private void unlockRead(final long stamp) {
+        if (0 == stamp) { return; }
+        lock.unlockRead(stamp);
     }
 
 
@@ -819,74 +1601,205 @@ public class ObservableMatrix<T> {
 
     public void setOnRowsMirrored(final Consumer<MRowsEvent> rowsMirroredConsumer) { this.rowsMirroredConsumer = rowsMirroredConsumer; }
 
+    /**
+     * Sets the consumer that will be triggered at the end of a batch update
+     * @param batchUpdatedConsumer A consumer of type MBatchEvent<T>
+     */
+    public void setOnBatchUpdated(final Consumer<MBatchEvent<T>> batchUpdatedConsumer) { this.batchUpdatedConsumer = batchUpdatedConsumer; }
+
+    /**
+     * Sets the consumer that will be triggered for each dirty region that is flushed
+     * @param regionChangedConsumer A consumer of type MRegionEvent
+     */
+    public void setOnRegionChanged(final Consumer<MRegionEvent> regionChangedConsumer) { this.regionChangedConsumer = regionChangedConsumer; }
+
     /**
      * Add the given MatrixObserver<T> for the given TYPE to the map of observers
      * @param type     The type of event that should be observed
      * @param observer An MObserver<T>
      */
-    public void setOnMEvent(final MEventType<? extends MEvent> type, final MObserver observer) {
-        if (!observers.keySet().contains(type.getName())) { observers.put(type.getName(), new CopyOnWriteArrayList<>()); }
-        if (!observers.get(type.getName()).contains(observer)) { observers.get(type.getName()).add(observer); }
-    }
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer) { dispatcher.addObserver(type, observer); }
+
+    /**
+     * Add the given MObserver for the given TYPE to the map of observers.
+     * The observer will be called on the given executor (e.g. a thread pool
+     * or a virtual thread per task executor) so that a slow observer does
+     * not delay the thread that changes the matrix. Each observer gets the
+     * events in the order they were fired.
+     * @param type     The type of event that should be observed
+     * @param observer An MObserver<T>
+     * @param executor The executor that runs the observer
+     */
+    public <E extends MEvent> void setOnMEvent(final MEventType<E> type, final MObserver<? super E> observer, final Executor executor) { dispatcher.addObserver(type, observer, executor); }
 
     /**
      * Remove the given MObserver<T> for the given TYPE from the map of observers
      * @param type     The type of event that should be observed
      * @param observer An MObserver<T>
      */
-    public void removeOnMEvent(final MEventType<? extends MEvent> type, final MObserver observer) {
-        if (!observers.keySet().contains(type.getName())) { return; }
-        if (observers.get(type.getName()).contains(observer)) { observers.get(type.getName()).remove(observer); }
-    }
+    public void removeOnMEvent(final MEventType<? extends MEvent> type, final MObserver<?> observer) { dispatcher.removeObserver(type, observer); }
 
     /**
      * Removes all observers
      */
-    public void removeAllObservers() { observers.entrySet().forEach(entry -> entry.getValue().clear()); }
+    public void removeAllObservers() { dispatcher.removeAllObservers(); }
 
+    /**
+     * Waits until all observers that were added with an executor have handled
+     * the events that were fired before (e.g. in tests)
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return false if the timeout elapsed before all events were handled
+     * @throws InterruptedException
+     */
+    public boolean awaitEvents(final long timeout, final TimeUnit unit) throws InterruptedException { return dispatcher.awaitAsyncObservers(timeout, unit); }
 
-    void fireEvent(final MEvent event) {
-        final MEventType<? extends MEvent> type = event.getEventType();
-
-        // Trigger specific observers first
-        observers.entrySet()
-                 .stream()
-                 .filter(entry -> entry.getKey().equals(type.getName()))
-                 .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
-
-        // Trigger all observers that subscribed to .ANY event types
-        observers.entrySet()
-                 .stream()
-                 .filter(entry -> entry.getKey().equals(MEvent.ANY.getName()))
-                 .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
-
-        if (ITEM_ADDED.equals(type) || ITEM_CHANGED.equals(type) || ITEM_REMOVED.equals(type)) {
-            observers.entrySet()
-                     .stream()
-                     .filter(entry -> entry.getKey().equals(MItemEvent.ANY.getName()))
-                     .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
-        } else if (COLUMN_ADDED.equals(type) || COLUMN_REMOVED.equals(type)) {
-            observers.entrySet()
-                     .stream()
-                     .filter(entry -> entry.getKey().equals(MColumnEvent.ANY.getName()))
-                     .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
-        } else if (ROW_ADDED.equals(type) || ROW_REMOVED.equals(type)) {
-            observers.entrySet()
-                     .stream()
-                     .filter(entry -> entry.getKey().equals(MRowEvent.ANY.getName()))
-                     .forEach(entry -> entry.getValue().forEach(observer -> observer.handle(event)));
+    /**
+     * Adds the given observer for the item changes in the given rectangle.
+     * The observer gets the MItemEvents of the cells in the rectangle and for
+     * a batch update an MBatchEvent with the changes in the rectangle. Other
+     * changes will not reach the observer, so many observers of small regions
+     * (e.g. one per widget) do not slow down each write.
+     * The rectangle follows the items when columns or rows are added, removed
+     * or mirrored and will be clipped if the matrix shrinks.
+     * @param x        column of the upper left corner
+     * @param y        row of the upper left corner
+     * @param width    number of columns
+     * @param height   number of rows
+     * @param observer An MObserver
+     * @return a RegionSubscription that can be cancelled
+     */
+    public RegionSubscription subscribe(final int x, final int y, final int width, final int height, final MObserver<? super MEvent> observer) {
+        if (null == observer) { throw new IllegalArgumentException("observer cannot be null"); }
+        final long stamp = lockStructure();
+        try {
+            if (x < 0 || y < 0 || width < 1 || height < 1 || x + width > cols || y + height > rows) { throw new IllegalArgumentException("region must be inside of the matrix"); }
+            final RegionSubscription subscription = new RegionSubscription(ObservableMatrix.this, x, y, width, height, observer);
+            regionIndex = null == regionIndex ? new MatrixRegionIndex(new RegionSubscription[] { subscription }) : regionIndex.add(subscription);
+            return subscription;
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+
+    /**
+     * Removes the given region subscription
+     * @param subscription
+     */
+    public void unsubscribe(final RegionSubscription subscription) {
+        final long stamp = lockStructure();
+        try {
+            if (null != regionIndex) { regionIndex = regionIndex.remove(subscription); }
+            subscription.setCancelled();
+        } finally {
+            unlockStructure(stamp);
+        }
+    }
+
+    /**
+     * Returns a publisher of all MEvents of this matrix with backpressure.
+     * Each subscriber gets its own buffer of at most bufferSize events and
+     * receives the events in order on the common ForkJoinPool. The given
+     * overflowPolicy decides what happens if a subscriber is too slow.
+     * @param bufferSize     max number of buffered events per subscriber
+     * @param overflowPolicy BLOCK, DROP_OLDEST or CONFLATE
+     * @return a publisher of all MEvents of this matrix
+     */
+    public MFlow.Publisher<MEvent> publisher(final int bufferSize, final OverflowPolicy overflowPolicy) { return publisher(bufferSize, overflowPolicy, ForkJoinPool.commonPool()); }
+    /**
+     * Returns a publisher of all MEvents of this matrix with backpressure
+     * that calls the subscribers on the given executor.
+     * A subscriber that changes the matrix in onNext() must not use the
+     * BLOCK or CONFLATE policy, because it might wait for itself.
+     * @param bufferSize     max number of buffered events per subscriber
+     * @param overflowPolicy BLOCK, DROP_OLDEST or CONFLATE
+     * @param executor       The executor that calls the subscribers
+     * @return a publisher of all MEvents of this matrix
+     */
+    public MFlow.Publisher<MEvent> publisher(final int bufferSize, final OverflowPolicy overflowPolicy, final Executor executor) {
+        return new MatrixPublisher(dispatcher, bufferSize, overflowPolicy, executor);
+    }
+
+    /**
+     * Starts recording the changes of this matrix with sequence numbers in a
+     * journal that keeps the latest capacity changes. A consumer that missed
+     * changes can catch up with journal.replayInto() or journal.changesSince().
+     * @param capacity max number of changes in the journal
+     * @return a journal of the changes of this matrix
+     */
+    public MatrixJournal<T> journal(final int capacity) {
+        final long stamp = lockStructure();
+        try {
+            final MatrixJournal<T> journal = new MatrixJournal<>(ObservableMatrix.this, capacity);
+            synchronized (this) {
+                final MatrixJournal<T>[] newJournals = Arrays.copyOf(journals, journals.length + 1);
+                newJournals[newJournals.length - 1] = journal;
+                journals = newJournals;
+            }
+            return journal;
+        } finally {
+            unlockStructure(stamp);
         }
     }
 
+    /**
+     * Stops recording the changes of the matrix in the given journal
+     * @param journal
+     */
+    synchronized void removeJournal(final MatrixJournal<T> journal) {
+        final int index = Arrays.asList(journals).indexOf(journal);
+        if (-1 == index) { return; }
+        final MatrixJournal<T>[] newJournals = Arrays.copyOf(journals, journals.length - 1);
+        System.arraycopy(journals, index + 1, newJournals, index, newJournals.length - index);
+        journals = newJournals;
+    }
+
+    /**
+     * Adds the given listener that will be informed about all changes of
+     * the matrix without creating event objects. Item changes will also be
+     * passed to the listeners during a batch update.
+     * @param listener An MChangeListener<T>
+     */
+    public synchronized void addChangeListener(final MChangeListener<T> listener) {
+        if (null == listener || Arrays.asList(changeListeners).contains(listener)) { return; }
+        final MChangeListener<T>[] listeners = Arrays.copyOf(changeListeners, changeListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        changeListeners = listeners;
+    }
+
+    /**
+     * Removes the given listener
+     * @param listener An MChangeListener<T>
+     */
+    public synchronized void removeChangeListener(final MChangeListener<T> listener) {
+        final int index = Arrays.asList(changeListeners).indexOf(listener);
+        if (-1 == index) { return; }
+        final MChangeListener<T>[] listeners = Arrays.copyOf(changeListeners, changeListeners.length - 1);
+        System.arraycopy(changeListeners, index + 1, listeners, index, listeners.length - index);
+        changeListeners = listeners;
+    }
+
+
+    void fireEvent(final MEvent event) {
+        dispatcher.fireEvent(event);
+        final MatrixRegionIndex regionIndex = this.regionIndex;
+        if (null != regionIndex) { regionIndex.fireEvent(event); }
+    }
+
 
     @Override public String toString() {
-        StringBuilder output = new StringBuilder();
-        for (int y = 0 ; y < rows ; y++) {
-            for (int x = 0 ; x < cols ; x++) {
-                output.append(matrix[x][y]).append(" ");
+        final long stamp = lockRead();
+        try {
+            StringBuilder output = new StringBuilder();
+            for (int y = 0 ; y < rows ; y++) {
+                for (int x = 0 ; x < cols ; x++) {
+                    output.append(get(x, y)).append(" ");
+                }
+                output.append("\n");
             }
-            output.append("\n");
+            return output.toString();
+        } finally {
+            unlockRead(stamp);
         }
-        return output.toString();
     }
 }
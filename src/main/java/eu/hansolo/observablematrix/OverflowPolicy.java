@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+
+/**
+ * Defines what a matrix publisher does if the buffer of a subscriber is full
+ */
+public enum OverflowPolicy {
+    /**
+     * The thread that changes the matrix waits until the subscriber
+     * requested and received enough events to make room in the buffer
+     */
+    BLOCK,
+    /**
+     * The oldest event in the buffer will be dropped
+     */
+    DROP_OLDEST,
+    /**
+     * A change of a cell replaces a change of the same cell that is still
+     * in the buffer (keeping the oldItem of the first change), so only the
+     * latest item of each cell will be delivered. If the buffer is full of
+     * changes of different cells or of structural events, the thread that
+     * changes the matrix waits like with BLOCK.
+     */
+    CONFLATE
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import eu.hansolo.observablematrix.event.MEvent;
+import eu.hansolo.observablematrix.event.MObserver;
+
+
+/**
+ * An MObserver that only observes the item changes in a rectangle of an
+ * ObservableMatrix, created by ObservableMatrix.subscribe().
+ * The rectangle follows the items when columns or rows are added, removed
+ * or mirrored and is clipped when the matrix shrinks. A subscription whose
+ * rectangle is removed completely will be cancelled.
+ */
+public final class RegionSubscription {
+    private final          ObservableMatrix<?>       matrix;
+    private final          MObserver<? super MEvent> observer;
+    private       volatile int[]                     region;
+    private       volatile boolean                   cancelled;
+
+
+    // ******************** Constructors **************************************
+    RegionSubscription(final ObservableMatrix<?> matrix, final int x, final int y, final int width, final int height, final MObserver<? super MEvent> observer) {
+        this.matrix    = matrix;
+        this.observer  = observer;
+        this.region    = new int[] { x, y, width, height };
+        this.cancelled = false;
+    }
+
+
+    // ******************** Methods *******************************************
+    public int getX() { return region[0]; }
+
+    public int getY() { return region[1]; }
+
+    public int getWidth() { return region[2]; }
+
+    public int getHeight() { return region[3]; }
+
+    public MObserver<? super MEvent> getObserver() { return observer; }
+
+    /**
+     * Removes the subscription from the matrix, the observer
+     * will not be informed about changes afterwards
+     */
+    public void cancel() { matrix.unsubscribe(RegionSubscription.this); }
+
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * Returns true if the given cell is part of the observed rectangle
+     * @param x
+     * @param y
+     * @return true if the given cell is part of the observed rectangle
+     */
+    public boolean contains(final int x, final int y) {
+        final int[] region = this.region;
+        return x >= region[0] && x < region[0] + region[2] && y >= region[1] && y < region[1] + region[3];
+    }
+
+    int[] getRegion() { return region; }
+
+    void setRegion(final int x, final int y, final int width, final int height) { region = new int[] { x, y, width, height }; }
+
+    void setCancelled() { cancelled = true; }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Stores only the non null items in a map where the key contains the
+ * column in the upper 32 bits and the row in the lower 32 bits.
+ * Memory consumption and the costs of structural changes depend on the
+ * number of non null items and not on the number of cells.
+ * @param <T>
+ */
+final class SparseMatrixStorage<T> implements MatrixStorage<T> {
+    private final Class<T>     type;
+    private       Map<Long, T> items;
+    private       int          cols;
+    private       int          rows;
+
+
+    // ******************** Constructors **************************************
+    SparseMatrixStorage(final Class<T> type, final int cols, final int rows) {
+        if (null == type) { throw new IllegalArgumentException("type cannot be null"); }
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        this.type  = type;
+        this.items = new HashMap<>();
+        this.cols  = cols;
+        this.rows  = rows;
+    }
+
+
+    // ******************** Methods *******************************************
+    @Override public T get(final int x, final int y) { return items.get(key(x, y)); }
+
+    @Override public void set(final int x, final int y, final T item) {
+        if (null == item) {
+            items.remove(key(x, y));
+        } else {
+            items.put(key(x, y), item);
+        }
+    }
+
+    @Override public int getCols() { return cols; }
+
+    @Override public int getRows() { return rows; }
+
+    @Override public int getNoOfItems() { return items.size(); }
+
+    @Override public void forEachItem(final ItemConsumer<T> consumer) {
+        items.forEach((key, item) -> consumer.accept(col(key), row(key), item));
+    }
+
+    @Override public void insertCol(final int at) {
+        Map<Long, T> newItems = new HashMap<>(items.size() * 4 / 3 + 1);
+        items.forEach((key, item) -> {
+            int x = col(key);
+            newItems.put(key(x < at ? x : x + 1, row(key)), item);
+        });
+        items = newItems;
+        cols++;
+    }
+
+    @Override public void removeCol(final int at) {
+        Map<Long, T> newItems = new HashMap<>(items.size() * 4 / 3 + 1);
+        items.forEach((key, item) -> {
+            int x = col(key);
+            if (x < at) {
+                newItems.put(key, item);
+            } else if (x > at) {
+                newItems.put(key(x - 1, row(key)), item);
+            }
+        });
+        items = newItems;
+        cols--;
+    }
+
+    @Override public void insertRow(final int at) {
+        Map<Long, T> newItems = new HashMap<>(items.size() * 4 / 3 + 1);
+        items.forEach((key, item) -> {
+            int y = row(key);
+            newItems.put(key(col(key), y < at ? y : y + 1), item);
+        });
+        items = newItems;
+        rows++;
+    }
+
+    @Override public void removeRow(final int at) {
+        Map<Long, T> newItems = new HashMap<>(items.size() * 4 / 3 + 1);
+        items.forEach((key, item) -> {
+            int y = row(key);
+            if (y < at) {
+                newItems.put(key, item);
+            } else if (y > at) {
+                newItems.put(key(col(key), y - 1), item);
+            }
+        });
+        items = newItems;
+        rows--;
+    }
+
+    @Override public void resize(final int cols, final int rows) {
+        if ( cols < 1 || rows < 1) { throw new IllegalArgumentException("cols/rows cannot be smaller than 1"); }
+        if (cols < this.cols || rows < this.rows) {
+            items.keySet().removeIf(key -> col(key) >= cols || row(key) >= rows);
+        }
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    /**
+     * The map only contains the non null items so there is nothing to reserve
+     * @param cols minimum number of columns
+     * @param rows minimum number of rows
+     */
+    @Override public void ensureCapacity(final int cols, final int rows) { }
+
+    @Override public void trimToSize() { items = new HashMap<>(items); }
+
+    @Override public void clear() { items.clear(); }
+
+    @Override public void mirrorCols() {
+        Map<Long, T> newItems = new HashMap<>(items.size() * 4 / 3 + 1);
+        items.forEach((key, item) -> newItems.put(key(cols - col(key) - 1, row(key)), item));
+        items = newItems;
+    }
+
+    @Override public void mirrorRows() {
+        Map<Long, T> newItems = new HashMap<>(items.size() * 4 / 3 + 1);
+        items.forEach((key, item) -> newItems.put(key(col(key), rows - row(key) - 1), item));
+        items = newItems;
+    }
+
+    @Override public boolean contains(final Object item) { return null != item && items.containsValue(item); }
+
+    @Override public long indexOf(final Object item) {
+        if (null == item) { return -1; }
+        long index = -1;
+        int  col   = Integer.MAX_VALUE;
+        int  row   = Integer.MAX_VALUE;
+        for (Map.Entry<Long, T> entry : items.entrySet()) {
+            if (!entry.getValue().equals(item)) { continue; }
+            int x = col(entry.getKey());
+            int y = row(entry.getKey());
+            if (y < row || (y == row && x < col)) {
+                col   = x;
+                row   = y;
+                index = entry.getKey();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns a copy of the items as 2-dimensional array [col][row]
+     * @return a copy of the items as 2-dimensional array [col][row]
+     */
+    @SuppressWarnings("unchecked")
+    @Override public T[][] toArray() {
+        T[][] array = (T[][]) Array.newInstance(type, cols, rows);
+        items.forEach((key, item) -> array[col(key)][row(key)] = item);
+        return array;
+    }
+
+
+    // ******************** Private methods ***********************************
+    private static long key(final int x, final int y) { return ((long) x << 32) | y; }
+
+    private static int col(final long key) { return (int) (key >>> 32); }
+
+    private static int row(final long key) { return (int) key; }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix;
+
+
+/**
+ * Defines how an ObservableMatrix stores its items
+ */
+public enum StorageMode {
+    /**
+     * One array per column (matrix[x][y]), getMatrix() returns the backing array
+     */
+    COLUMN_ARRAYS,
+    /**
+     * One contiguous array where the items of a row are next to each other,
+     * best for row scans like getRow(), contains() and getIndicesOf()
+     */
+    ROW_MAJOR,
+    /**
+     * One contiguous array where the items of a column are next to each other,
+     * best for column scans like getCol()
+     */
+    COLUMN_MAJOR,
+    /**
+     * Only non null items will be stored (in a hash map), best for
+     * matrices where most of the cells are null
+     */
+    SPARSE,
+    /**
+     * One contiguous array that is addressed through a logical to physical
+     * map for the columns and rows, best for matrices where columns and rows
+     * are often added or removed because this will not copy the cells
+     */
+    INDEXED;
+
+
+    <T> MatrixStorage<T> createStorage(final Class<T> type, final int cols, final int rows) {
+        switch(this) {
+            case ROW_MAJOR   : return new FlatMatrixStorage<>(type, cols, rows, true);
+            case COLUMN_MAJOR: return new FlatMatrixStorage<>(type, cols, rows, false);
+            case SPARSE      : return new SparseMatrixStorage<>(type, cols, rows);
+            case INDEXED     : return new IndexedMatrixStorage<>(type, cols, rows);
+            case COLUMN_ARRAYS:
+            default          : return new ArrayMatrixStorage<>(type, cols, rows);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Fired once at the end of a batch update instead of one MItemEvent per change.
+ * The changes are stored in arrays and only turned into MItemEvents if
+ * getChanges() is called. They are in the order they were made, so a cell
+ * that was changed more than once in the batch appears more than once.
+ * @param <T>
+ */
+public class MBatchEvent<T> extends MEvent {
+    public static final MEventType<MBatchEvent<?>> ANY           = new MEventType<>(MEvent.ANY, "BATCH_ANY");
+    public static final MEventType<MBatchEvent<?>> BATCH_UPDATED = new MEventType<>(MBatchEvent.ANY, "BATCH_UPDATED");
+
+    private final int                 noOfChanges;
+    private final int[]               xs;
+    private final int[]               ys;
+    private final Object[]            oldItems;
+    private final Object[]            items;
+    private       List<MItemEvent<T>> changes;
+
+
+    // ******************** Constructors **************************************
+    public MBatchEvent(final Object source, final MEventType<? extends MBatchEvent<?>> eventType, final int noOfChanges, final int[] xs, final int[] ys, final Object[] oldItems, final Object[] items) {
+        super(source, eventType);
+        this.noOfChanges = noOfChanges;
+        this.xs          = xs;
+        this.ys          = ys;
+        this.oldItems    = oldItems;
+        this.items       = items;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the number of item changes in the batch
+     * @return the number of item changes in the batch
+     */
+    public int getNoOfChanges() { return noOfChanges; }
+
+    /**
+     * Returns the column of the change with the given index
+     * @param index between 0 and getNoOfChanges() - 1
+     * @return the column of the change with the given index
+     */
+    public int getX(final int index) { return xs[checkIndex(index)]; }
+
+    /**
+     * Returns the row of the change with the given index
+     * @param index between 0 and getNoOfChanges() - 1
+     * @return the row of the change with the given index
+     */
+    public int getY(final int index) { return ys[checkIndex(index)]; }
+
+    /**
+     * Returns the item that was replaced by the change with the given index
+     * @param index between 0 and getNoOfChanges() - 1
+     * @return the item that was replaced by the change with the given index
+     */
+    @SuppressWarnings("unchecked")
+    public T getOldItem(final int index) { return (T) oldItems[checkIndex(index)]; }
+
+    /**
+     * Returns the item that was set by the change with the given index
+     * @param index between 0 and getNoOfChanges() - 1
+     * @return the item that was set by the change with the given index
+     */
+    @SuppressWarnings("unchecked")
+    public T getItem(final int index) { return (T) items[checkIndex(index)]; }
+
+    /**
+     * Returns the changes of the batch as MItemEvents (ITEM_ADDED,
+     * ITEM_REMOVED or ITEM_CHANGED), they will be created on the first call
+     * @return the changes of the batch as MItemEvents
+     */
+    public List<MItemEvent<T>> getChanges() {
+        if (null == changes) {
+            List<MItemEvent<T>> itemEvents = new ArrayList<>(noOfChanges);
+            for (int i = 0 ; i < noOfChanges ; i++) {
+                final T                         oldItem = getOldItem(i);
+                final T                         item    = getItem(i);
+                final MEventType<MItemEvent<?>> type    = null == item ? MItemEvent.ITEM_REMOVED : null == oldItem ? MItemEvent.ITEM_ADDED : MItemEvent.ITEM_CHANGED;
+                itemEvents.add(new MItemEvent<>(getSource(), type, xs[i], ys[i], oldItem, item));
+            }
+            changes = Collections.unmodifiableList(itemEvents);
+        }
+        return changes;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    @Override public MEventType<? extends MBatchEvent<?>> getEventType() {
+        return (MEventType<? extends MBatchEvent<?>>) super.getEventType();
+    }
+
+
+    // ******************** Private methods ***********************************
+    private int checkIndex(final int index) {
+        if (index < 0 || index >= noOfChanges) { throw new IllegalArgumentException("index must be between 0 and " + (noOfChanges - 1)); }
+        return index;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix.event;
+
+
+/**
+ * A listener that is informed about the changes of a matrix without
+ * creating event objects, so that writing to a matrix with only change
+ * listeners does not create any garbage.
+ * Only onItemChanged() has to be implemented, so it can be used as a lambda.
+ * The AtomicObservableMatrix calls onItemChanged() while the stripe of the
+ * changed cell is locked, so that the changes of a cell arrive in the order
+ * they were applied. The listener should therefore return quickly and must
+ * not update other cells of the matrix.
+ * @param <T>
+ */
+@FunctionalInterface
+public interface MChangeListener<T> {
+    /**
+     * Called after an item was added (oldItem is null), removed (item is null)
+     * or changed in the matrix
+     * @param x       Column of the item
+     * @param y       Row of the item
+     * @param oldItem the item that was replaced
+     * @param item    the item that replaced the oldItem
+     */
+    void onItemChanged(int x, int y, T oldItem, T item);
+
+    default void onColumnAdded(int column) {}
+
+    default void onColumnRemoved(int column) {}
+
+    default void onRowAdded(int row) {}
+
+    default void onRowRemoved(int row) {}
+
+    default void onNoOfColumnsChanged(int noOfColumns) {}
+
+    default void onNoOfRowsChanged(int noOfRows) {}
+
+    default void onColumnsMirrored(int noOfColumns) {}
+
+    default void onRowsMirrored(int noOfRows) {}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix.event;
+
+public class MDoubleItemEvent extends MEvent {
+    public static final MEventType<MDoubleItemEvent> ANY          = new MEventType<>(MEvent.ANY, "DOUBLE_ITEM_ANY");
+    public static final MEventType<MDoubleItemEvent> ITEM_CHANGED = new MEventType<>(MDoubleItemEvent.ANY, "DOUBLE_ITEM_CHANGED");
+
+    private final int    x;
+    private final int    y;
+    private final double oldItem;
+    private final double item;
+
+
+    // ******************** Constructors **************************************
+    public MDoubleItemEvent(final Object source, final MEventType<? extends MDoubleItemEvent> eventType, final int x, final int y, final double oldItem, final double item) {
+        super(source, eventType);
+        this.x       = x;
+        this.y       = y;
+        this.oldItem = oldItem;
+        this.item    = item;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the column of the item that was changed in the matrix
+     * @return the column of the item that was changed in the matrix
+     */
+    public int getX() { return x; }
+
+    /**
+     * Returns the row of the item that was changed in the matrix
+     * @return the row of the item that was changed in the matrix
+     */
+    public int getY() { return y; }
+
+    /**
+     * Returns the former value that was replaced by the new value in the matrix
+     * @return the former value that was replaced by the new value in the matrix
+     */
+    public double getOldItem() { return oldItem; }
+
+    /**
+     * Returns the value that replaces the oldItem in the matrix
+     * @return the value that replaces the oldItem in the matrix
+     */
+    public double getItem() { return item; }
+
+
+    @SuppressWarnings("unchecked")
+    @Override public MEventType<? extends MDoubleItemEvent> getEventType() {
+        return (MEventType<? extends MDoubleItemEvent>) super.getEventType();
+    }
+}
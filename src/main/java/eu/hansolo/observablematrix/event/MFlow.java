@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix.event;
+
+
+/**
+ * Interfaces for publishing events with backpressure. They have the same
+ * methods as the interfaces in java.util.concurrent.Flow (which is not
+ * available in Java 8), so adapting them is a one liner in each direction
+ * e.g. publisher::subscribe with a subscriber that forwards the calls.
+ */
+public final class MFlow {
+
+    // ******************** Constructors **************************************
+    private MFlow() {}
+
+
+    // ******************** Inner Classes *************************************
+    @FunctionalInterface
+    public interface Publisher<T> {
+        /**
+         * Adds the given subscriber, onSubscribe() will be called before
+         * any other method of the subscriber
+         * @param subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+        /**
+         * Adds the given number of items to the number of items
+         * that may be passed to onNext() of the subscriber
+         * @param n a positive number
+         */
+        void request(long n);
+
+        /**
+         * Stops passing items to the subscriber, items
+         * that are still buffered will be dropped
+         */
+        void cancel();
+    }
+}
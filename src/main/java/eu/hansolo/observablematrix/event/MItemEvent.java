@@ -17,10 +17,10 @@
 package eu.hansolo.observablematrix.event;
 
 public class MItemEvent<T> extends MEvent {
-    public static final MEventType<MItemEvent> ANY          = new MEventType<>(MEvent.ANY, "ITEM_ANY");
-    public static final MEventType<MItemEvent> ITEM_ADDED   = new MEventType<>(MItemEvent.ANY, "ITEM_ADDED");
-    public static final MEventType<MItemEvent> ITEM_CHANGED = new MEventType<>(MItemEvent.ANY, "ITEM_CHANGED");
-    public static final MEventType<MItemEvent> ITEM_REMOVED = new MEventType<>(MItemEvent.ANY, "ITEM_REMOVED");
+    public static final MEventType<MItemEvent<?>> ANY          = new MEventType<>(MEvent.ANY, "ITEM_ANY");
+    public static final MEventType<MItemEvent<?>> ITEM_ADDED   = new MEventType<>(MItemEvent.ANY, "ITEM_ADDED");
+    public static final MEventType<MItemEvent<?>> ITEM_CHANGED = new MEventType<>(MItemEvent.ANY, "ITEM_CHANGED");
+    public static final MEventType<MItemEvent<?>> ITEM_REMOVED = new MEventType<>(MItemEvent.ANY, "ITEM_REMOVED");
 
     private final int x;
     private final int y;
@@ -29,7 +29,7 @@ public class MItemEvent<T> extends MEvent {
 
 
     // ******************** Constructors **************************************
-    public MItemEvent(final Object source, final MEventType<? extends MItemEvent> eventType, final int x, final int y, final T oldItem, final T item) {
+    public MItemEvent(final Object source, final MEventType<? extends MItemEvent<?>> eventType, final int x, final int y, final T oldItem, final T item) {
         super(source, eventType);
         this.x       = x;
         this.y       = y;
@@ -64,7 +64,7 @@ public class MItemEvent<T> extends MEvent {
     public T getItem() { return item; }
 
 
-    @Override public MEventType<? extends MItemEvent> getEventType() {
-        return (MEventType<? extends MItemEvent>) super.getEventType();
+    @Override public MEventType<? extends MItemEvent<?>> getEventType() {
+        return (MEventType<? extends MItemEvent<?>>) super.getEventType();
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix.event;
+
+public class MLongItemEvent extends MEvent {
+    public static final MEventType<MLongItemEvent> ANY          = new MEventType<>(MEvent.ANY, "LONG_ITEM_ANY");
+    public static final MEventType<MLongItemEvent> ITEM_CHANGED = new MEventType<>(MLongItemEvent.ANY, "LONG_ITEM_CHANGED");
+
+    private final int  x;
+    private final int  y;
+    private final long oldItem;
+    private final long item;
+
+
+    // ******************** Constructors **************************************
+    public MLongItemEvent(final Object source, final MEventType<? extends MLongItemEvent> eventType, final int x, final int y, final long oldItem, final long item) {
+        super(source, eventType);
+        this.x       = x;
+        this.y       = y;
+        this.oldItem = oldItem;
+        this.item    = item;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the column of the item that was changed in the matrix
+     * @return the column of the item that was changed in the matrix
+     */
+    public int getX() { return x; }
+
+    /**
+     * Returns the row of the item that was changed in the matrix
+     * @return the row of the item that was changed in the matrix
+     */
+    public int getY() { return y; }
+
+    /**
+     * Returns the former value that was replaced by the new value in the matrix
+     * @return the former value that was replaced by the new value in the matrix
+     */
+    public long getOldItem() { return oldItem; }
+
+    /**
+     * Returns the value that replaces the oldItem in the matrix
+     * @return the value that replaces the oldItem in the matrix
+     */
+    public long getItem() { return item; }
+
+
+    @SuppressWarnings("unchecked")
+    @Override public MEventType<? extends MLongItemEvent> getEventType() {
+        return (MEventType<? extends MLongItemEvent>) super.getEventType();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019 by Gerrit Grunwald
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.hansolo.observablematrix.event;
+
+
+/**
+ * Describes a rectangle of the matrix in which items were added, removed or
+ * changed since the last flush of the dirty regions.
+ * The rectangle may contain cells that did not change.
+ */
+public class MRegionEvent extends MEvent {
+    public static final MEventType<MRegionEvent> ANY            = new MEventType<>(MEvent.ANY, "REGION_ANY");
+    public static final MEventType<MRegionEvent> REGION_CHANGED = new MEventType<>(MRegionEvent.ANY, "REGION_CHANGED");
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+
+    // ******************** Constructors **************************************
+    public MRegionEvent(final Object source, final MEventType<? extends MRegionEvent> eventType, final int x, final int y, final int width, final int height) {
+        super(source, eventType);
+        this.x      = x;
+        this.y      = y;
+        this.width  = width;
+        this.height = height;
+    }
+
+
+    // ******************** Methods *******************************************
+    /**
+     * Returns the first column of the region
+     * @return the first column of the region
+     */
+    public int getX() { return x; }
+
+    /**
+     * Returns the first row of the region
+     * @return the first row of the region
+     */
+    public int getY() { return y; }
+
+    /**
+     * Returns the number of columns of the region
+     * @return the number of columns of the region
+     */
+    public int getWidth() { return width; }
+
+    /**
+     * Returns the number of rows of the region
+     * @return the number of rows of the region
+     */
+    public int getHeight() { return height; }
+
+    /**
+     * Returns true if the given position is inside of the region
+     * @param x
+     * @param y
+     * @return true if the given position is inside of the region
+     */
+    public boolean contains(final int x, final int y) { return x >= this.x && x < this.x + width && y >= this.y && y < this.y + height; }
+
+
+    @SuppressWarnings("unchecked")
+    @Override public MEventType<? extends MRegionEvent> getEventType() {
+        return (MEventType<? extends MRegionEvent>) super.getEventType();
+    }
+}